@@ -0,0 +1,522 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.Extension;
+import hudson.init.Terminator;
+import hudson.model.BuildListener;
+import hudson.model.Queue;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.util.SystemProperties;
+import net.sf.json.JSONObject;
+import org.jenkinsci.plugins.workflow.flow.FlowExecutionOwner;
+import org.jenkinsci.plugins.workflow.log.TaskListenerDecorator;
+
+/**
+ * Buffers writes to the logs of a build in a bounded ring, to be written out by a small shared pool of flusher threads,
+ * so that CPS and step threads are not held up by a slow disk.
+ * The overall log and the log of each step running on the controller share one ring, which records where each run of bytes goes,
+ * so that output reaches the log storage in the order it was printed: a node's banner before its step's output.
+ * A writer blocks only when the ring is full; the time spent so is recorded as stall time.
+ * {@link #flush} only asks for the buffer to be written soon; {@link #sync} waits for it.
+ * Disabled unless {@link #ENABLED} is set.
+ */
+final class AsyncLogWriter extends OutputStream {
+
+    private static final Logger LOGGER = Logger.getLogger(AsyncLogWriter.class.getName());
+
+    /** Whether {@link WorkflowRun} buffers its overall log. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static boolean ENABLED = SystemProperties.getBoolean(AsyncLogWriter.class.getName() + ".enabled", false);
+
+    /** Capacity of each ring. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static int BUFFER_BYTES = SystemProperties.getInteger(AsyncLogWriter.class.getName() + ".bufferBytes", 1024 * 1024);
+
+    /** Longest time output may sit in a ring before being written. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static long FLUSH_MILLIS = SystemProperties.getLong(AsyncLogWriter.class.getName() + ".flushMillis", 200L);
+
+    /** Amount of buffered output which triggers an immediate write. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static int FLUSH_BYTES = SystemProperties.getInteger(AsyncLogWriter.class.getName() + ".flushBytes", 64 * 1024);
+
+    /** Number of flusher threads shared by all builds; read when the first buffered log is opened. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static int THREADS = SystemProperties.getInteger(AsyncLogWriter.class.getName() + ".threads", 2);
+
+    private static volatile ScheduledExecutorService flushers;
+
+    private static ScheduledExecutorService flushers() {
+        ScheduledExecutorService f = flushers;
+        if (f == null) {
+            synchronized (AsyncLogWriter.class) {
+                f = flushers;
+                if (f == null) {
+                    f = new ScheduledThreadPoolExecutor(THREADS, new NamingThreadFactory(new DaemonThreadFactory(), "AsyncLogWriter"));
+                    flushers = f;
+                }
+            }
+        }
+        return f;
+    }
+
+    private static final Set<AsyncLogWriter> OPEN = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    private static final AtomicLong buffered = new AtomicLong();
+    private static final AtomicLong maxBuffered = new AtomicLong();
+    private static final AtomicLong bytesWritten = new AtomicLong();
+    private static final AtomicLong stalls = new AtomicLong();
+    private static final AtomicLong stallNanos = new AtomicLong();
+    private static final AtomicLong failures = new AtomicLong();
+
+    private final OutputStream out;
+    private final byte[] ring;
+    /** Where the buffered bytes go, in ring order. */
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    /** Serializes drains, which write outside {@link #lock}. */
+    private final Object drainLock = new Object();
+    private int head;
+    private int count;
+    private boolean scheduled;
+    private boolean urgent;
+    private boolean closed;
+    /** Thread currently in {@link #drain}, which must never wait on the ring itself. */
+    private volatile Thread drainer;
+
+    private static final class Segment {
+        final OutputStream target;
+        int length;
+        Segment(OutputStream target) {
+            this.target = target;
+        }
+    }
+
+    AsyncLogWriter(@NonNull OutputStream out) {
+        this.out = out;
+        ring = new byte[BUFFER_BYTES];
+        OPEN.add(this);
+    }
+
+    @Override public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override public void write(byte[] b, int off, int len) throws IOException {
+        if (!append(out, b, off, len)) {
+            throw new IOException("closed");
+        }
+    }
+
+    /**
+     * An output stream writing to {@code target} through this buffer, in order with everything else written to it.
+     * Once this buffer is closed it writes to {@code target} directly.
+     */
+    @NonNull OutputStream to(@NonNull OutputStream target) {
+        return new OutputStream() {
+            @Override public void write(int b) throws IOException {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+            @Override public void write(@NonNull byte[] b, int off, int len) throws IOException {
+                if (!append(target, b, off, len)) {
+                    target.write(b, off, len);
+                }
+            }
+            @Override public void flush() throws IOException {
+                if (isClosed()) {
+                    target.flush();
+                } else {
+                    AsyncLogWriter.this.flush();
+                }
+            }
+            @Override public void close() throws IOException {
+                try {
+                    sync();
+                } finally {
+                    target.close();
+                }
+            }
+        };
+    }
+
+    private boolean isClosed() {
+        lock.lock();
+        try {
+            return closed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return false if nothing was buffered because this is closed */
+    private boolean append(OutputStream target, byte[] b, int off, int len) throws IOException {
+        if (Thread.currentThread() == drainer) {
+            target.write(b, off, len); // written by something being drained to, such as a decorator above the overall log
+            return true;
+        }
+        while (len > 0) {
+            lock.lock();
+            try {
+                if (closed) {
+                    return false;
+                }
+                if (count == ring.length) {
+                    stalls.incrementAndGet();
+                    long start = System.nanoTime();
+                    try {
+                        while (count == ring.length) {
+                            schedule(true);
+                            notFull.await();
+                        }
+                    } catch (InterruptedException x) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException();
+                    } finally {
+                        stallNanos.addAndGet(System.nanoTime() - start);
+                    }
+                }
+                int n = Math.min(len, ring.length - count);
+                int tail = (head + count) % ring.length;
+                int first = Math.min(n, ring.length - tail);
+                System.arraycopy(b, off, ring, tail, first);
+                System.arraycopy(b, off + first, ring, 0, n - first);
+                count += n;
+                Segment last = segments.peekLast();
+                if (last == null || last.target != target) {
+                    last = new Segment(target);
+                    segments.addLast(last);
+                }
+                last.length += n;
+                off += n;
+                len -= n;
+                maxBuffered.accumulateAndGet(buffered.addAndGet(n), Math::max);
+                schedule(count >= FLUSH_BYTES);
+            } finally {
+                lock.unlock();
+            }
+        }
+        return true;
+    }
+
+    /** Called with {@link #lock} held. */
+    private void schedule(boolean now) {
+        if (now ? urgent : scheduled) {
+            return;
+        }
+        if (now) {
+            urgent = true;
+            flushers().execute(this::drainQuietly);
+        } else {
+            scheduled = true;
+            flushers().schedule(this::drainQuietly, FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void drainQuietly() {
+        try {
+            drain();
+        } catch (IOException x) {
+            failures.incrementAndGet();
+            LOGGER.log(Level.WARNING, "failed to write build log", x);
+        }
+    }
+
+    /** Writes out everything buffered so far. */
+    private void drain() throws IOException {
+        synchronized (drainLock) {
+            drainer = Thread.currentThread();
+            List<OutputStream> written = new ArrayList<>(1);
+            try {
+                while (true) {
+                    Segment segment;
+                    int start;
+                    int n;
+                    lock.lock();
+                    try {
+                        scheduled = false;
+                        urgent = false;
+                        if (count == 0) {
+                            break;
+                        }
+                        segment = segments.getFirst();
+                        start = head;
+                        n = Math.min(segment.length, ring.length - head);
+                    } finally {
+                        lock.unlock();
+                    }
+                    if (!written.contains(segment.target)) {
+                        written.add(segment.target);
+                    }
+                    // Writers only touch the free part of the ring, so this region is stable until released below.
+                    try {
+                        segment.target.write(ring, start, n);
+                    } finally {
+                        lock.lock();
+                        try {
+                            head = (head + n) % ring.length;
+                            count -= n;
+                            segment.length -= n;
+                            if (segment.length == 0) {
+                                segments.removeFirst();
+                            }
+                            buffered.addAndGet(-n);
+                            notFull.signalAll();
+                        } finally {
+                            lock.unlock();
+                        }
+                    }
+                    bytesWritten.addAndGet(n);
+                }
+                for (OutputStream target : written) {
+                    target.flush();
+                }
+            } finally {
+                drainer = null;
+            }
+        }
+    }
+
+    /** Asks for buffered output to be written soon, without waiting. */
+    @Override public void flush() {
+        lock.lock();
+        try {
+            if (count > 0) {
+                schedule(true);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Writes out everything buffered so far on the calling thread. */
+    void sync() throws IOException {
+        drain();
+    }
+
+    /** Writes out everything buffered and refuses further writes; the underlying stream is left open. */
+    @Override public void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            lock.lock();
+            try {
+                closed = true;
+            } finally {
+                lock.unlock();
+            }
+            OPEN.remove(this);
+        }
+    }
+
+    /** Drains every open writer, for example while Jenkins shuts down with builds still running. */
+    @Terminator public static void syncAll() {
+        List<AsyncLogWriter> writers;
+        synchronized (OPEN) {
+            writers = new ArrayList<>(OPEN);
+        }
+        for (AsyncLogWriter w : writers) {
+            try {
+                w.sync();
+            } catch (IOException x) {
+                LOGGER.log(Level.WARNING, "failed to write build log", x);
+            }
+        }
+    }
+
+    /**
+     * The overall build log with writes buffered, placed beneath any {@link TaskListenerDecorator}s.
+     * Closing it drains the buffer and then closes the original.
+     * When sent to another JVM it drains and is replaced by the original listener.
+     */
+    static final class Listener implements BuildListener, AutoCloseable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final BuildListener delegate;
+        private final transient AsyncLogWriter writer;
+        private final transient PrintStream logger;
+
+        Listener(@NonNull BuildListener delegate) {
+            this.delegate = delegate;
+            writer = new AsyncLogWriter(delegate.getLogger());
+            logger = new PrintStream(writer, false, StandardCharsets.UTF_8);
+        }
+
+        @NonNull
+        @Override public PrintStream getLogger() {
+            return logger;
+        }
+
+        @Override public void close() throws Exception {
+            logger.flush();
+            try {
+                writer.close();
+            } finally {
+                if (delegate instanceof AutoCloseable) {
+                    ((AutoCloseable) delegate).close();
+                }
+            }
+        }
+
+        /** Writes out everything printed so far. */
+        void sync() throws IOException {
+            logger.flush();
+            writer.sync();
+        }
+
+        private Object writeReplace() throws IOException {
+            sync();
+            return delegate;
+        }
+
+    }
+
+    /**
+     * Sends the output of steps running on the controller through the ring of the build's overall {@link Listener}.
+     * The overall log itself is already buffered beneath every decorator, so is left alone.
+     * When sent to an agent, which writes to its own remote stream, it writes out what is buffered and is replaced by {@link Direct}.
+     */
+    private static final class Decorator extends TaskListenerDecorator {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient Listener overall;
+
+        Decorator(Listener overall) {
+            this.overall = overall;
+        }
+
+        @NonNull
+        @Override public OutputStream decorate(@NonNull OutputStream logger) {
+            return logger == overall.getLogger() ? logger : overall.writer.to(logger);
+        }
+
+        private Object writeReplace() throws IOException {
+            overall.sync();
+            return new Direct();
+        }
+
+    }
+
+    /** What a {@link Decorator} becomes in another JVM. */
+    private static final class Direct extends TaskListenerDecorator {
+
+        private static final long serialVersionUID = 1L;
+
+        @NonNull
+        @Override public OutputStream decorate(@NonNull OutputStream logger) {
+            return logger;
+        }
+
+    }
+
+    /** Applies {@link Decorator} to builds with a buffered log, ahead of other factories so that it lies nearest the log storage. */
+    @Extension(ordinal = 1000) public static final class DecoratorFactory implements TaskListenerDecorator.Factory {
+
+        @CheckForNull
+        @Override public TaskListenerDecorator of(@NonNull FlowExecutionOwner owner) {
+            if (!ENABLED) {
+                return null;
+            }
+            Queue.Executable executable;
+            try {
+                executable = owner.getExecutable();
+            } catch (IOException x) {
+                return null;
+            }
+            Listener overall = executable instanceof WorkflowRun ? ((WorkflowRun) executable).asyncListener() : null;
+            return overall != null ? new Decorator(overall) : null;
+        }
+
+    }
+
+    /** Bytes currently buffered across all builds. */
+    static long getBuffered() {
+        return buffered.get();
+    }
+
+    /** Most bytes ever buffered at once across all builds. */
+    static long getMaxBuffered() {
+        return maxBuffered.get();
+    }
+
+    /** Bytes written out to build logs; callers wanting a rate should diff successive readings. */
+    static long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    /** Number of times a build thread blocked on a full buffer. */
+    static long getStalls() {
+        return stalls.get();
+    }
+
+    /** Total time build threads spent blocked on full buffers. */
+    static long getStallMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(stallNanos.get());
+    }
+
+    /** Number of failed writes, whose output was lost. */
+    static long getFailures() {
+        return failures.get();
+    }
+
+    @Extension public static final class Metrics implements PersistenceMetrics.Source {
+        @Override public void contribute(@NonNull JSONObject json) {
+            JSONObject logWriter = PersistenceMetrics.section(json, "logWriter");
+            logWriter.put("buffered", getBuffered());
+            logWriter.put("maxBuffered", getMaxBuffered());
+            logWriter.put("bytesWritten", getBytesWritten());
+            logWriter.put("stalls", getStalls());
+            logWriter.put("stallMillis", getStallMillis());
+            logWriter.put("failures", getFailures());
+        }
+    }
+
+}
@@ -0,0 +1,493 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.Extension;
+import hudson.console.AnnotatedLargeText;
+import hudson.console.ConsoleAnnotationOutputStream;
+import hudson.console.ConsoleAnnotator;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import jenkins.util.SystemProperties;
+import jenkins.util.Timer;
+import net.sf.json.JSONObject;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+/**
+ * Server-sent events carrying the annotated HTML console of a running build.
+ * One {@link Tailer} per build reads newly appended bytes, annotates complete lines once, and hands the result to every subscriber.
+ * Each subscriber has a bounded queue; one which falls too far behind is sent a {@code dropped} event and disconnected,
+ * and may reconnect with {@code Last-Event-ID} (the raw log offset up to which it has received output) to catch up.
+ * Subscribers do not hold request threads: each request is put into asynchronous mode,
+ * and events and heartbeats are written by a small shared pool of delivery threads.
+ * Only if some filter does not support asynchronous requests does the request thread wait for its subscriber to finish,
+ * and then for at most {@link #SYNC_WAIT_MILLIS}.
+ * A new tailer starts from the beginning of the last line written so far, so its first event never begins mid-line or inside a note.
+ */
+final class ConsoleStream {
+
+    private static final Logger LOGGER = Logger.getLogger(ConsoleStream.class.getName());
+
+    /** How often each tailer looks for new output. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static long POLL_MILLIS = SystemProperties.getLong(ConsoleStream.class.getName() + ".pollMillis", 500L);
+
+    /** Number of events a subscriber may have pending before it is dropped. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static int QUEUE = SystemProperties.getInteger(ConsoleStream.class.getName() + ".queue", 256);
+
+    /** Maximum number of concurrent subscribers across all builds. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static int MAX_SUBSCRIBERS = SystemProperties.getInteger(ConsoleStream.class.getName() + ".maxSubscribers", 200);
+
+    /** Number of threads writing events to subscribers. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static int DELIVERY_THREADS = SystemProperties.getInteger(ConsoleStream.class.getName() + ".deliveryThreads", 4);
+
+    /**
+     * Longest a request thread waits for its subscriber when the request cannot be made asynchronous;
+     * a client which went away without the connection failing is then closed, and may reconnect with {@code Last-Event-ID}.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static long SYNC_WAIT_MILLIS = SystemProperties.getLong(ConsoleStream.class.getName() + ".syncWaitMillis", TimeUnit.MINUTES.toMillis(30));
+
+    /** Interval of comment lines sent to idle subscribers, which also notices disconnected clients. */
+    static long HEARTBEAT_MILLIS = TimeUnit.SECONDS.toMillis(15);
+
+    private static final Map<WorkflowRun, Tailer> TAILERS = new ConcurrentHashMap<>();
+    private static final Set<Subscriber> SUBSCRIBED = ConcurrentHashMap.newKeySet();
+    private static ExecutorService delivery;
+    private static ScheduledFuture<?> heartbeat;
+    private static final AtomicInteger subscribers = new AtomicInteger();
+    private static final AtomicLong events = new AtomicLong();
+    private static final AtomicLong dropped = new AtomicLong();
+
+    private ConsoleStream() {}
+
+    /** A chunk of HTML covering raw log output up to {@link #offset}, or a control event. */
+    static final class Event {
+        final long offset;
+        final @CheckForNull String html;
+        final @CheckForNull String name;
+        Event(long offset, String html, String name) {
+            this.offset = offset;
+            this.html = html;
+            this.name = name;
+        }
+    }
+
+    static final Event COMPLETE = new Event(-1, null, "complete");
+    static final Event DROPPED = new Event(-1, null, "dropped");
+
+    private static synchronized ExecutorService delivery() {
+        if (delivery == null) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(DELIVERY_THREADS, DELIVERY_THREADS, 1, TimeUnit.MINUTES, new LinkedBlockingQueue<>(),
+                    new NamingThreadFactory(new DaemonThreadFactory(), "ConsoleStream"));
+            executor.allowCoreThreadTimeOut(true);
+            delivery = executor;
+        }
+        if (heartbeat == null) {
+            heartbeat = Timer.get().scheduleWithFixedDelay(() -> SUBSCRIBED.forEach(Subscriber::ping), HEARTBEAT_MILLIS, HEARTBEAT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        return delivery;
+    }
+
+    static final class Subscriber {
+        final BlockingQueue<Event> queue = new ArrayBlockingQueue<>(QUEUE + 1);
+        volatile boolean dropped;
+        private volatile PrintWriter w;
+        private Tailer tailer;
+        private @CheckForNull AsyncContext async;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean open = new AtomicBoolean(true);
+        private final CountDownLatch closed = new CountDownLatch(1);
+        private volatile long lastSent = System.nanoTime();
+
+        void offer(Event event) {
+            if (dropped) {
+                return;
+            }
+            if (queue.remainingCapacity() <= 1 && event != COMPLETE) {
+                dropped = true;
+                ConsoleStream.dropped.incrementAndGet();
+                queue.offer(DROPPED);
+            } else {
+                queue.offer(event);
+            }
+            deliver();
+        }
+
+        /** Starts writing queued events to the client. */
+        void attach(@NonNull PrintWriter w, @CheckForNull AsyncContext async) {
+            this.async = async;
+            this.w = w;
+            SUBSCRIBED.add(this);
+            deliver();
+        }
+
+        private void deliver() {
+            if (w != null && open.get() && scheduled.compareAndSet(false, true)) {
+                delivery().submit(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                synchronized (this) {
+                    for (Event event = queue.poll(); event != null && open.get(); event = queue.poll()) {
+                        send(w, event);
+                        lastSent = System.nanoTime();
+                        if (w.checkError() || event == COMPLETE || event == DROPPED) {
+                            close();
+                        }
+                    }
+                }
+            } finally {
+                scheduled.set(false);
+            }
+            if (!queue.isEmpty()) {
+                deliver(); // offered while finishing
+            }
+        }
+
+        private void ping() {
+            if (System.nanoTime() - lastSent < TimeUnit.MILLISECONDS.toNanos(HEARTBEAT_MILLIS)) {
+                return;
+            }
+            delivery().submit(() -> {
+                synchronized (this) {
+                    if (open.get()) {
+                        w.print(": ping\n\n");
+                        w.flush();
+                        lastSent = System.nanoTime();
+                        if (w.checkError()) {
+                            close(); // client went away
+                        }
+                    }
+                }
+            });
+        }
+
+        void close() {
+            if (!open.compareAndSet(true, false)) {
+                return;
+            }
+            SUBSCRIBED.remove(this);
+            if (tailer != null) {
+                tailer.unsubscribe(this);
+            }
+            subscribers.decrementAndGet();
+            try {
+                if (async != null) {
+                    async.complete();
+                }
+            } catch (IllegalStateException x) {
+                LOGGER.log(Level.FINE, "request already finished", x);
+            } finally {
+                closed.countDown();
+            }
+        }
+    }
+
+    /** Feeds new raw output of one build through a single annotator, emitting only whole lines. */
+    private static final class Tailer extends OutputStream {
+
+        private final WorkflowRun run;
+        private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        private final StringWriter html = new StringWriter();
+        private final ConsoleAnnotationOutputStream<WorkflowRun> annotator;
+        /** Raw offset read up to. */
+        private long read;
+        /** Raw offset just after the last complete line passed to {@link #annotator}. */
+        private long emitted;
+        private ScheduledFuture<?> task;
+        private boolean done;
+
+        Tailer(WorkflowRun run, long start) {
+            this.run = run;
+            read = emitted = start;
+            annotator = new ConsoleAnnotationOutputStream<>(html, ConsoleAnnotator.initial(run), run, run.getCharset());
+        }
+
+        @Override public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override public void write(byte[] b, int off, int len) throws IOException {
+            annotator.write(b, off, len);
+            for (int i = off + len - 1; i >= off; i--) {
+                if (b[i] == '\n') {
+                    emitted = read + i - off + 1;
+                    break;
+                }
+            }
+            read += len;
+        }
+
+        synchronized void poll() {
+            if (done) {
+                return;
+            }
+            try {
+                boolean complete = !run.isLogUpdated();
+                long length = run.getLogText().length();
+                while (read < length) {
+                    long next = run.getLogText().writeRawLogTo(read, this);
+                    if (next <= read) {
+                        break;
+                    }
+                    read = next; // in case the storage skipped anything
+                }
+                if (complete) {
+                    annotator.close(); // final line without a newline
+                    emitted = read;
+                }
+                String chunk = html.toString();
+                if (!chunk.isEmpty()) {
+                    html.getBuffer().setLength(0);
+                    publish(new Event(emitted, chunk, null));
+                }
+                if (complete) {
+                    publish(COMPLETE);
+                    stop();
+                }
+            } catch (IOException | RuntimeException x) {
+                LOGGER.log(Level.WARNING, "failed to tail " + run, x);
+            }
+        }
+
+        private void publish(Event event) {
+            events.incrementAndGet();
+            for (Subscriber s : subscribers) {
+                s.offer(event);
+            }
+        }
+
+        /** Adds a subscriber, returning the offset from which it will receive events. */
+        synchronized long subscribe(Subscriber s) {
+            subscribers.add(s);
+            if (task == null) {
+                task = Timer.get().scheduleWithFixedDelay(this::poll, 0, POLL_MILLIS, TimeUnit.MILLISECONDS);
+            }
+            return emitted;
+        }
+
+        synchronized void unsubscribe(Subscriber s) {
+            subscribers.remove(s);
+            if (subscribers.isEmpty()) {
+                stop();
+            }
+        }
+
+        private void stop() {
+            done = true;
+            if (task != null) {
+                task.cancel(false);
+                task = null;
+            }
+            TAILERS.remove(run, this);
+        }
+
+    }
+
+    static void serve(@NonNull WorkflowRun run, @NonNull StaplerRequest req, @NonNull StaplerResponse rsp) throws IOException, InterruptedException {
+        long start;
+        try {
+            String lastEventId = req.getHeader("Last-Event-ID");
+            String startParam = lastEventId != null ? lastEventId : req.getParameter("start");
+            start = startParam != null ? Math.max(0, Long.parseLong(startParam)) : -1;
+        } catch (NumberFormatException x) {
+            rsp.sendError(StaplerResponse.SC_BAD_REQUEST, x.toString());
+            return;
+        }
+        if (subscribers.incrementAndGet() > MAX_SUBSCRIBERS) {
+            subscribers.decrementAndGet();
+            rsp.sendError(StaplerResponse.SC_SERVICE_UNAVAILABLE, "too many console subscribers");
+            return;
+        }
+        Subscriber s = new Subscriber();
+        try {
+            rsp.setContentType("text/event-stream;charset=UTF-8");
+            rsp.setHeader("Cache-Control", "no-cache");
+            rsp.setHeader("X-Accel-Buffering", "no");
+            PrintWriter w = rsp.getWriter();
+            if (!run.isLogUpdated()) {
+                if (start >= 0) {
+                    send(w, catchUp(run, start, run.getLogText().length()));
+                }
+                send(w, COMPLETE);
+                s.close();
+                return;
+            }
+            AsyncContext async = null;
+            if (req.isAsyncSupported()) {
+                async = req.startAsync();
+                async.setTimeout(0);
+                async.addListener(new AsyncListener() {
+                    @Override public void onComplete(AsyncEvent event) {}
+                    @Override public void onTimeout(AsyncEvent event) {
+                        s.close();
+                    }
+                    @Override public void onError(AsyncEvent event) {
+                        s.close();
+                    }
+                    @Override public void onStartAsync(AsyncEvent event) {}
+                });
+            }
+            Tailer tailer;
+            long from;
+            while (true) {
+                tailer = TAILERS.computeIfAbsent(run, ConsoleStream::tailer);
+                synchronized (tailer) {
+                    if (TAILERS.get(run) == tailer) {
+                        from = tailer.subscribe(s);
+                        break;
+                    }
+                }
+            }
+            s.tailer = tailer;
+            if (start >= 0 && start < from) {
+                send(w, catchUp(run, start, from)); // events from the tailer wait in the queue meanwhile
+            }
+            s.attach(w, async);
+            if (async == null) {
+                if (!s.closed.await(SYNC_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    s.close();
+                }
+            }
+        } catch (IOException | InterruptedException | RuntimeException x) {
+            s.close();
+            throw x;
+        }
+    }
+
+    private static Tailer tailer(WorkflowRun run) {
+        AnnotatedLargeText<?> text = run.getLogText();
+        try {
+            return new Tailer(run, LogTail.lineStart(text.length(), text::writeRawLogTo));
+        } catch (IOException x) {
+            throw new UncheckedIOException(x);
+        }
+    }
+
+    /** Annotates {@code [start, end)} of the raw log separately for one subscriber. */
+    private static Event catchUp(WorkflowRun run, long start, long end) throws IOException {
+        StringWriter html = new StringWriter();
+        ConsoleAnnotationOutputStream<WorkflowRun> annotator = new ConsoleAnnotationOutputStream<>(html, ConsoleAnnotator.initial(run), run, run.getCharset());
+        long[] pos = {start};
+        OutputStream slice = new OutputStream() {
+            @Override public void write(int b) throws IOException {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+            @Override public void write(byte[] b, int off, int len) throws IOException {
+                int n = (int) Math.max(0, Math.min(len, end - pos[0]));
+                annotator.write(b, off, n);
+                pos[0] += len;
+            }
+        };
+        long p = start;
+        while (p < end) {
+            long next = run.getLogText().writeRawLogTo(p, slice);
+            if (next <= p) {
+                break;
+            }
+            p = next;
+        }
+        annotator.close();
+        return new Event(end, html.toString(), null);
+    }
+
+    private static void send(PrintWriter w, Event event) {
+        if (event.name != null) {
+            w.print("event: " + event.name + "\n");
+        }
+        if (event.offset >= 0) {
+            w.print("id: " + event.offset + "\n");
+        }
+        String data = event.html != null ? event.html : "";
+        for (String line : data.split("\n", -1)) {
+            w.print("data: ");
+            w.print(line);
+            w.print('\n');
+        }
+        w.print('\n');
+        w.flush();
+    }
+
+    /** Number of connected subscribers. */
+    static int getSubscribers() {
+        return subscribers.get();
+    }
+
+    /** Number of events published by tailers. */
+    static long getEvents() {
+        return events.get();
+    }
+
+    /** Number of subscribers disconnected for falling behind. */
+    static long getDropped() {
+        return dropped.get();
+    }
+
+    @Extension public static final class Metrics implements PersistenceMetrics.Source {
+        @Override public void contribute(@NonNull JSONObject json) {
+            JSONObject console = PersistenceMetrics.section(json, "console");
+            console.put("streamSubscribers", getSubscribers());
+            console.put("streamEvents", getEvents());
+            console.put("streamDropped", getDropped());
+        }
+    }
+
+}
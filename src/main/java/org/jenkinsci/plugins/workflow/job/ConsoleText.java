@@ -0,0 +1,407 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.util.NullStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+/**
+ * Serves {@code consoleText} with support for a single byte range, so that log shippers can resume a download.
+ * Offsets refer to the plain text as served, with console notes removed.
+ * Completed builds get a strong {@code ETag} derived from the start time and final raw log length,
+ * honored by {@code If-None-Match} and {@code If-Range}.
+ * Full responses are gzipped when the client accepts that (a nonzero q-value for {@code gzip}, {@code x-gzip} or {@code *}), with a distinct {@code ETag},
+ * while ranges are always served without content coding, so a range is only ever validated against the identity representation.
+ * The plain length of a completed build is computed in the background when it finishes
+ * and stored in {@value #FILE_NAME} beside the log, along with the raw length it was computed from.
+ * Skipped text is still read on the controller, but not sent, and reading stops at the end of the range.
+ * When the plain length is not known yet, as while the build runs, the log is read once,
+ * counting all of it while keeping the text from the start of the range in memory, or in a temporary file past {@link #SPOOL_MEMORY} bytes.
+ */
+final class ConsoleText {
+
+    private static final Logger LOGGER = Logger.getLogger(ConsoleText.class.getName());
+
+    static final String FILE_NAME = "log-plain-length";
+
+    /** Bytes of a range kept in memory while its total length is counted; beyond this it goes to a temporary file. */
+    private static final int SPOOL_MEMORY = 1024 * 1024;
+
+    private ConsoleText() {}
+
+    static void serve(@NonNull WorkflowRun run, @NonNull StaplerRequest req, @NonNull StaplerResponse rsp) throws IOException {
+        boolean complete = !run.isLogUpdated();
+        String etag = complete ? etag(run) : null;
+        String range = req.getHeader("Range");
+        String ifRange = req.getHeader("If-Range");
+        if (range != null && ifRange != null && !ifRange.equals(etag)) {
+            range = null; // representation changed, so send all of it
+        }
+        long[] bounds = range != null ? parse(range) : null;
+        boolean gzip = bounds == null && acceptsGzip(req.getHeader("Accept-Encoding"));
+        rsp.setHeader("Accept-Ranges", "bytes");
+        rsp.setHeader("Vary", "Accept-Encoding");
+        if (etag != null) {
+            String tag = gzip ? gzipped(etag) : etag;
+            rsp.setHeader("ETag", tag);
+            if (matches(req.getHeader("If-None-Match"), tag)) {
+                rsp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+        }
+        rsp.setContentType("text/plain;charset=UTF-8");
+        if (bounds == null) {
+            if (gzip) {
+                rsp.setHeader("Content-Encoding", "gzip");
+            }
+            try (OutputStream os = gzip ? new GZIPOutputStream(rsp.getOutputStream()) : rsp.getOutputStream()) {
+                CountingOutputStream counting = new CountingOutputStream(os);
+                writePlainTo(run, counting);
+                if (complete && run.consoleTextLength == null) {
+                    remember(run, counting.getByteCount());
+                }
+            }
+            return;
+        }
+        Long known = complete ? known(run) : null;
+        try (Spool spool = known == null ? new Spool(bounds[0] == -1 ? 0 : bounds[0], bounds[0] == -1 || bounds[1] == -1 ? Long.MAX_VALUE : bounds[1] + 1) : null) {
+            if (spool != null) {
+                writePlainTo(run, spool);
+                if (complete) {
+                    remember(run, spool.total);
+                }
+            }
+            serveRange(run, rsp, bounds, known != null ? known : spool.total, spool);
+        }
+    }
+
+    private static void serveRange(WorkflowRun run, StaplerResponse rsp, long[] bounds, long total, @CheckForNull Spool spool) throws IOException {
+        long start;
+        long end;
+        if (bounds[0] == -1) { // suffix
+            start = Math.max(0, total - bounds[1]);
+            end = total - 1;
+        } else {
+            start = bounds[0];
+            end = bounds[1] == -1 ? total - 1 : Math.min(bounds[1], total - 1);
+        }
+        if (start >= total || start > end) {
+            rsp.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            rsp.setHeader("Content-Range", "bytes */" + total);
+            return;
+        }
+        rsp.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        rsp.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + total);
+        rsp.setHeader("Content-Length", Long.toString(end - start + 1));
+        try (OutputStream os = rsp.getOutputStream()) {
+            if (spool != null) {
+                spool.copy(start, end + 1, os);
+            } else {
+                writePlainTo(run, new Slice(os, start, end + 1));
+            }
+        } catch (StopCopying x) {
+            // all sent
+        }
+    }
+
+    static @NonNull String etag(@NonNull WorkflowRun run) {
+        return "\"" + Long.toHexString(run.getTimeInMillis()) + "-" + Long.toHexString(run.getLogText().length()) + "\"";
+    }
+
+    /** Tag of the gzipped representation, which must differ from that of the identity one. */
+    private static @NonNull String gzipped(@NonNull String etag) {
+        return etag.substring(0, etag.length() - 1) + "-gzip\"";
+    }
+
+    /** Whether {@code gzip} (or its alias {@code x-gzip}, or else {@code *}) is listed in {@code Accept-Encoding} with a nonzero q-value. */
+    static boolean acceptsGzip(@CheckForNull String accept) {
+        if (accept == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double any = null;
+        for (String element : accept.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ENGLISH);
+            double q = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.regionMatches(true, 0, "q=", 0, 2)) {
+                    try {
+                        q = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException x) {
+                        q = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = gzip == null ? q : Math.max(gzip, q);
+            } else if (coding.equals("*")) {
+                any = q;
+            }
+        }
+        if (gzip != null) {
+            return gzip > 0;
+        }
+        return any != null && any > 0;
+    }
+
+    private static boolean matches(@CheckForNull String ifNoneMatch, @NonNull String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parses a single range.
+     * @return first and last positions, with -1 as the first for a suffix length or as the last for an open end; or null if not a single byte range
+     */
+    static @CheckForNull long[] parse(@NonNull String range) {
+        if (!range.startsWith("bytes=") || range.indexOf(',') != -1) {
+            return null;
+        }
+        String spec = range.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash == -1) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                long suffix = Long.parseLong(last);
+                return suffix > 0 ? new long[] {-1, suffix} : null;
+            }
+            long from = Long.parseLong(first);
+            long to = last.isEmpty() ? -1 : Long.parseLong(last);
+            if (from < 0 || (to != -1 && to < from)) {
+                return null;
+            }
+            return new long[] {from, to};
+        } catch (NumberFormatException x) {
+            return null;
+        }
+    }
+
+    /** Copies the raw log through a {@link NoteStripper}, rather than decoding it line by line. */
+    private static void writePlainTo(WorkflowRun run, OutputStream os) throws IOException {
+        NoteStripper plain = new NoteStripper(os);
+        WorkflowRun.writeLogTo(run.getLogText()::writeRawLogTo, plain);
+        plain.finish();
+    }
+
+    /** Computes the plain length of a just-completed build in the background, so ranges need not. */
+    static void finished(@NonNull WorkflowRun run) {
+        LogScans.submit(run, "compute the plain log length", () -> length(run));
+    }
+
+    /** Plain-text length of a completed build, remembered in memory and on disk. */
+    private static long length(WorkflowRun run) throws IOException {
+        Long length = known(run);
+        if (length != null) {
+            return length;
+        }
+        CountingOutputStream counting = new CountingOutputStream(new NullStream());
+        writePlainTo(run, counting);
+        remember(run, counting.getByteCount());
+        return counting.getByteCount();
+    }
+
+    /** Plain-text length of a completed build, if already remembered in memory or on disk. */
+    private static @CheckForNull Long known(WorkflowRun run) {
+        Long length = run.consoleTextLength;
+        if (length == null) {
+            length = stored(run);
+            if (length != null) {
+                run.consoleTextLength = length;
+            }
+        }
+        return length;
+    }
+
+    /** Reads {@value #FILE_NAME}, if present and computed from the current raw log. */
+    private static @CheckForNull Long stored(WorkflowRun run) {
+        File file = new File(run.getRootDir(), FILE_NAME);
+        try (InputStream is = Files.newInputStream(file.toPath()); DataInputStream in = new DataInputStream(is)) {
+            if (in.readLong() != run.getLogText().length()) {
+                return null;
+            }
+            return in.readLong();
+        } catch (NoSuchFileException x) {
+            return null;
+        } catch (IOException x) {
+            LOGGER.log(Level.FINE, "could not read " + file, x);
+            return null;
+        }
+    }
+
+    private static void remember(WorkflowRun run, long length) {
+        run.consoleTextLength = length;
+        File file = new File(run.getRootDir(), FILE_NAME);
+        File tmp = new File(run.getRootDir(), FILE_NAME + ".tmp");
+        try {
+            try (OutputStream os = Files.newOutputStream(tmp.toPath()); DataOutputStream out = new DataOutputStream(os)) {
+                out.writeLong(run.getLogText().length());
+                out.writeLong(length);
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException x) {
+            LOGGER.log(Level.FINE, "could not write " + file, x);
+        }
+    }
+
+    /** Counts everything written to it, keeping what falls in {@code [from, until)}. */
+    private static final class Spool extends OutputStream {
+
+        private final long from;
+        private final long until;
+        long total;
+        private final ByteArrayOutputStream memory = new ByteArrayOutputStream();
+        private File file;
+        private OutputStream disk;
+
+        Spool(long from, long until) {
+            this.from = from;
+            this.until = until;
+        }
+
+        @Override public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override public void write(byte[] b, int off, int len) throws IOException {
+            int skip = (int) Math.max(0, Math.min(len, from - total));
+            int keep = (int) Math.max(0, Math.min(len, until - total) - skip);
+            total += len;
+            if (keep == 0) {
+                return;
+            }
+            if (disk == null && memory.size() + keep > SPOOL_MEMORY) {
+                file = Files.createTempFile("consoleText", ".tmp").toFile();
+                disk = Files.newOutputStream(file.toPath());
+                memory.writeTo(disk);
+                memory.reset();
+            }
+            (disk != null ? disk : memory).write(b, off + skip, keep);
+        }
+
+        /** Copies {@code [start, end)} of the counted text, which must lie within {@code [from, until)}. */
+        void copy(long start, long end, OutputStream out) throws IOException {
+            if (disk == null) {
+                out.write(memory.toByteArray(), (int) (start - from), (int) (end - start));
+                return;
+            }
+            disk.close();
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+                raf.seek(start - from);
+                byte[] buf = new byte[8192];
+                long remaining = end - start;
+                while (remaining > 0) {
+                    int n = raf.read(buf, 0, (int) Math.min(buf.length, remaining));
+                    if (n == -1) {
+                        break;
+                    }
+                    out.write(buf, 0, n);
+                    remaining -= n;
+                }
+            }
+        }
+
+        @Override public void close() throws IOException {
+            if (disk != null) {
+                disk.close();
+                Files.deleteIfExists(file.toPath());
+            }
+        }
+
+    }
+
+    /** Passes through bytes in {@code [start, end)} of what is written to it. */
+    private static final class Slice extends OutputStream {
+
+        private final OutputStream out;
+        private final long start;
+        private final long end;
+        private long pos;
+
+        Slice(OutputStream out, long start, long end) {
+            this.out = out;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override public void write(byte[] b, int off, int len) throws IOException {
+            long from = Math.max(pos, start);
+            long to = Math.min(pos + len, end);
+            if (from < to) {
+                out.write(b, off + (int) (from - pos), (int) (to - from));
+            }
+            pos += len;
+            if (pos >= end) {
+                throw new StopCopying();
+            }
+        }
+
+        @Override public void flush() throws IOException {
+            out.flush();
+        }
+
+    }
+
+}
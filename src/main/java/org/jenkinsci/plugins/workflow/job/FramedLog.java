@@ -0,0 +1,295 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.apache.commons.io.output.CountingOutputStream;
+
+/**
+ * A completed build log rewritten as a series of independently gzipped frames of fixed uncompressed size,
+ * so that reading from some offset only needs to inflate the frames from there on.
+ * The frames are concatenated gzip members, so {@code zcat log.frames} still gives the whole log.
+ * The sidecar {@code log.frames-index} records the codec, frame size, uncompressed length,
+ * and the file offset of each frame; it is written last, so its presence means the frames are complete.
+ */
+final class FramedLog {
+
+    static final String FRAMES_FILE = "log.frames";
+    static final String INDEX_FILE = "log.frames-index";
+
+    private static final int MAGIC = 0x574A4C46; // WJLF
+    private static final int VERSION = 1;
+
+    private static final AtomicLong framesRead = new AtomicLong();
+
+    /** Compression levels on offer; both produce standard gzip members. */
+    enum Codec {
+        GZIP(Deflater.DEFAULT_COMPRESSION),
+        /** Roughly half the CPU of {@link #GZIP} for a somewhat larger file. */
+        FAST(Deflater.BEST_SPEED);
+
+        final int level;
+
+        Codec(int level) {
+            this.level = level;
+        }
+
+        static @NonNull Codec of(@NonNull String name) {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    /** One gzip member written to a stream which is left open. */
+    private static final class Member extends GZIPOutputStream {
+        Member(OutputStream out, int level) throws IOException {
+            super(out);
+            def.setLevel(level);
+        }
+        void end() throws IOException {
+            finish();
+            def.end();
+        }
+    }
+
+    private final File frames;
+    private final int frameSize;
+    private final long length;
+    /** File offset of each frame, plus the end of the last. */
+    private final long[] offsets;
+
+    private FramedLog(File frames, int frameSize, long length, long[] offsets) {
+        this.frames = frames;
+        this.frameSize = frameSize;
+        this.length = length;
+        this.offsets = offsets;
+    }
+
+    static boolean exists(@NonNull File dir) {
+        return new File(dir, INDEX_FILE).isFile();
+    }
+
+    static @NonNull FramedLog open(@NonNull File dir) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(new File(dir, INDEX_FILE))))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("unrecognized " + INDEX_FILE + " in " + dir);
+            }
+            in.readInt(); // codec, informational
+            int frameSize = in.readInt();
+            long length = in.readLong();
+            int count = in.readInt();
+            long[] offsets = new long[count + 1];
+            for (int i = 0; i <= count; i++) {
+                offsets[i] = in.readLong();
+            }
+            return new FramedLog(new File(dir, FRAMES_FILE), frameSize, length, offsets);
+        }
+    }
+
+    /**
+     * Rewrites {@code log} in {@code dir} as frames, then deletes it.
+     * The frames, the index, and their names in the directory are all forced to disk before the plain log is deleted,
+     * so a crash at any point leaves at least one complete copy.
+     * @return the size of the frames file
+     */
+    static long compress(@NonNull File dir, @NonNull Codec codec, int frameSize) throws IOException {
+        File log = new File(dir, "log");
+        File framesTmp = new File(dir, FRAMES_FILE + ".tmp");
+        File indexTmp = new File(dir, INDEX_FILE + ".tmp");
+        try {
+            long length = 0;
+            long[] offsets;
+            try (InputStream in = new FileInputStream(log); FileOutputStream fos = new FileOutputStream(framesTmp)) {
+                CountingOutputStream out = new CountingOutputStream(new BufferedOutputStream(fos));
+                long size = log.length();
+                offsets = new long[(int) ((size + frameSize - 1) / frameSize) + 1];
+                byte[] buf = new byte[frameSize];
+                int frame = 0;
+                while (true) {
+                    int n = in.readNBytes(buf, 0, frameSize);
+                    if (n == 0) {
+                        break;
+                    }
+                    if (frame + 1 >= offsets.length) {
+                        throw new IOException(log + " grew while compressing");
+                    }
+                    offsets[frame++] = out.getByteCount();
+                    Member member = new Member(out, codec.level);
+                    member.write(buf, 0, n);
+                    member.end();
+                    length += n;
+                }
+                if (frame != offsets.length - 1) {
+                    throw new IOException(log + " shrank while compressing");
+                }
+                offsets[frame] = out.getByteCount();
+                out.flush();
+                fos.getChannel().force(true);
+            }
+            try (FileOutputStream fos = new FileOutputStream(indexTmp)) {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos));
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(codec.ordinal());
+                out.writeInt(frameSize);
+                out.writeLong(length);
+                out.writeInt(offsets.length - 1);
+                for (long offset : offsets) {
+                    out.writeLong(offset);
+                }
+                out.flush();
+                fos.getChannel().force(true);
+            }
+            Files.move(framesTmp.toPath(), new File(dir, FRAMES_FILE).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(indexTmp.toPath(), new File(dir, INDEX_FILE).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            syncDirectory(dir);
+            Files.delete(log.toPath());
+            return offsets[offsets.length - 1];
+        } finally {
+            Files.deleteIfExists(framesTmp.toPath());
+            Files.deleteIfExists(indexTmp.toPath());
+        }
+    }
+
+    /**
+     * Forces the entries of a directory to disk, so that renames within it survive a crash.
+     * Some platforms (Windows) cannot open a directory this way; there the rename is left to the file system's own journal.
+     */
+    private static void syncDirectory(File dir) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(dir.toPath(), StandardOpenOption.READ);
+        } catch (IOException x) {
+            return;
+        }
+        try (FileChannel c = channel) {
+            c.force(true);
+        }
+    }
+
+    /** Uncompressed length. */
+    long length() {
+        return length;
+    }
+
+    /** The whole uncompressed log. */
+    @NonNull InputStream stream() throws IOException {
+        return new GZIPInputStream(new BufferedInputStream(new FileInputStream(frames)));
+    }
+
+    /**
+     * Copies uncompressed bytes from {@code from} up to {@code to}, inflating only the frames overlapping that range.
+     * @return the offset copied up to
+     */
+    long copy(long from, long to, @NonNull OutputStream out) throws IOException {
+        try (Cursor cursor = cursor()) {
+            return cursor.copy(from, to, out);
+        }
+    }
+
+    /** Opens the frames for several reads in a row. */
+    @NonNull Cursor cursor() throws IOException {
+        return new Cursor();
+    }
+
+    /**
+     * Reads any number of ranges through one open file, keeping the last inflated frame,
+     * since neighboring ranges (such as the output of one step interleaved with others) often fall in the same frame.
+     */
+    final class Cursor implements Closeable {
+
+        private final RandomAccessFile raf;
+        private final byte[] buf = new byte[frameSize];
+        private int frame = -1;
+        private int frameLength;
+
+        private Cursor() throws IOException {
+            raf = new RandomAccessFile(frames, "r");
+        }
+
+        /** Like {@link FramedLog#copy}. */
+        long copy(long from, long to, @NonNull OutputStream out) throws IOException {
+            to = Math.min(to, length);
+            if (from >= to) {
+                return Math.max(from, 0);
+            }
+            for (int f = (int) (from / frameSize); (long) f * frameSize < to; f++) {
+                inflate(f);
+                long frameStart = (long) f * frameSize;
+                int start = (int) (Math.max(from, frameStart) - frameStart);
+                int end = (int) Math.min(frameLength, to - frameStart);
+                out.write(buf, start, end - start);
+            }
+            return to;
+        }
+
+        private void inflate(int f) throws IOException {
+            if (f == frame) {
+                return;
+            }
+            frame = -1;
+            byte[] compressed = new byte[(int) (offsets[f + 1] - offsets[f])];
+            raf.seek(offsets[f]);
+            raf.readFully(compressed);
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+                frameLength = in.readNBytes(buf, 0, frameSize);
+            }
+            framesRead.incrementAndGet();
+            frame = f;
+        }
+
+        @Override public void close() throws IOException {
+            raf.close();
+        }
+
+    }
+
+    /** Number of frames inflated by {@link #copy}. */
+    static long getFramesRead() {
+        return framesRead.get();
+    }
+
+}
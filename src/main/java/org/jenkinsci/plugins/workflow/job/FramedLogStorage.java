@@ -0,0 +1,462 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.Extension;
+import hudson.console.AnnotatedLargeText;
+import hudson.console.ConsoleAnnotationOutputStream;
+import hudson.console.ConsoleAnnotator;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.BuildListener;
+import hudson.model.TaskListener;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.servlet.http.HttpServletResponse;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import jenkins.util.Timer;
+import net.sf.json.JSONObject;
+import org.apache.commons.io.output.WriterOutputStream;
+import org.jenkinsci.plugins.workflow.flow.FlowExecutionOwner;
+import org.jenkinsci.plugins.workflow.graph.FlowNode;
+import org.jenkinsci.plugins.workflow.log.LogStorage;
+import org.jenkinsci.plugins.workflow.log.LogStorageFactory;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+import org.kohsuke.stapler.framework.io.ByteBuffer;
+
+/**
+ * Read-only {@link LogStorage} for completed builds whose {@code log} has been rewritten as a {@link FramedLog}.
+ * The {@code log-index} sidecar of the default file storage is kept as is,
+ * so step logs and the per-node markup of the HTML console still work, reading only the frames they need.
+ * Builds are compressed a little after they finish if {@link #COMPRESS_ON_FINISH} is set,
+ * and older builds are migrated in the background if {@link #MIGRATE} is set.
+ */
+@Restricted(NoExternalUse.class)
+public final class FramedLogStorage implements LogStorage {
+
+    private static final Logger LOGGER = Logger.getLogger(FramedLogStorage.class.getName());
+
+    /** Whether to compress the log of each build once it is complete. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static boolean COMPRESS_ON_FINISH = SystemProperties.getBoolean(FramedLogStorage.class.getName() + ".compressOnFinish", false);
+
+    /** {@code gzip} or {@code fast}. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static String CODEC = SystemProperties.getString(FramedLogStorage.class.getName() + ".codec", "gzip");
+
+    /** Uncompressed bytes per frame. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static int FRAME_SIZE = SystemProperties.getInteger(FramedLogStorage.class.getName() + ".frameSize", 1024 * 1024);
+
+    /** How long after completion to compress, so that anything still reading the plain log can finish. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static long DELAY_MILLIS = SystemProperties.getLong(FramedLogStorage.class.getName() + ".delayMillis", TimeUnit.MINUTES.toMillis(1));
+
+    /** Whether to compress the logs of existing completed builds in the background. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static boolean MIGRATE = SystemProperties.getBoolean(FramedLogStorage.class.getName() + ".migrate", false);
+
+    /** Maximum number of builds migrated per run of {@link Migration}. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static int MIGRATE_BATCH = SystemProperties.getInteger(FramedLogStorage.class.getName() + ".migrateBatch", 1000);
+
+    private static final Set<String> COMPRESSING = ConcurrentHashMap.newKeySet();
+
+    private static final AtomicLong compressed = new AtomicLong();
+    private static final AtomicLong bytesBefore = new AtomicLong();
+    private static final AtomicLong bytesAfter = new AtomicLong();
+
+    private final File dir;
+    private final FramedLog log;
+
+    private FramedLogStorage(File dir, FramedLog log) {
+        this.dir = dir;
+        this.log = log;
+    }
+
+    @NonNull
+    @Override public BuildListener overallListener() throws IOException {
+        throw new IOException("the log in " + dir + " has been compressed and is read-only");
+    }
+
+    @NonNull
+    @Override public TaskListener nodeListener(@NonNull FlowNode node) throws IOException {
+        throw new IOException("the log in " + dir + " has been compressed and is read-only");
+    }
+
+    @NonNull
+    @Override public AnnotatedLargeText<FlowExecutionOwner.Executable> overallLog(@NonNull FlowExecutionOwner.Executable build, boolean complete) {
+        return new Text<>(build);
+    }
+
+    @NonNull
+    @Override public AnnotatedLargeText<FlowNode> stepLog(@NonNull FlowNode node, boolean complete) {
+        ByteBuffer buf = new ByteBuffer();
+        try (BufferedReader index = index(); FramedLog.Cursor cursor = log.cursor()) {
+            String id = node.getId();
+            long start = -1;
+            String line;
+            while ((line = index.readLine()) != null) {
+                int space = line.indexOf(' ');
+                long pos = Long.parseLong(space == -1 ? line : line.substring(0, space));
+                if (start != -1) {
+                    cursor.copy(start, pos, buf);
+                    start = -1;
+                }
+                if (space != -1 && line.substring(space + 1).equals(id)) {
+                    start = pos;
+                }
+            }
+            if (start != -1) {
+                cursor.copy(start, log.length(), buf);
+            }
+        } catch (IOException | NumberFormatException x) {
+            LOGGER.log(Level.WARNING, "could not read log of " + node.getId() + " from " + dir, x);
+        }
+        return new AnnotatedLargeText<>(buf, StandardCharsets.UTF_8, true, node);
+    }
+
+    /** Opens the frames for {@link NodeLogs}, which reads the index itself. */
+    @NonNull NodeLogs.Raw raw() throws IOException {
+        FramedLog.Cursor cursor = log.cursor();
+        return new NodeLogs.Raw() {
+            @Override public void copy(long from, long to, @NonNull OutputStream out) throws IOException {
+                cursor.copy(from, to, out);
+            }
+            @Override public void close() throws IOException {
+                cursor.close();
+            }
+        };
+    }
+
+    private BufferedReader index() throws IOException {
+        File index = new File(dir, "log-index");
+        return index.isFile() ? Files.newBufferedReader(index.toPath(), StandardCharsets.UTF_8) : new BufferedReader(Reader.nullReader());
+    }
+
+    /**
+     * The overall log.
+     * {@link AnnotatedLargeText} reads its source directly in several places, so everything reading it is overridden here.
+     */
+    private final class Text<T> extends AnnotatedLargeText<T> {
+
+        private final T context;
+
+        Text(T context) {
+            super(new File(dir, FramedLog.FRAMES_FILE), StandardCharsets.UTF_8, true, context);
+            this.context = context;
+        }
+
+        @Override public long length() {
+            return log.length();
+        }
+
+        @Override public Reader readAll() throws IOException {
+            return new InputStreamReader(log.stream(), StandardCharsets.UTF_8);
+        }
+
+        @Override public long writeRawLogTo(long start, OutputStream out) throws IOException {
+            return log.copy(start, log.length(), out);
+        }
+
+        @Override public long writeLogTo(long start, OutputStream out) throws IOException {
+            NoteStripper plain = new NoteStripper(out);
+            long r = writeRawLogTo(start, plain);
+            plain.finish();
+            return r;
+        }
+
+        @Override public long writeLogTo(long start, Writer w) throws IOException {
+            WriterOutputStream out = new WriterOutputStream(w, StandardCharsets.UTF_8);
+            long r = writeLogTo(start, out);
+            out.flush();
+            return r;
+        }
+
+        /** Marks the output of each node as {@code <span class="pipeline-node-ID">}, as the default file storage does. */
+        @Override public long writeHtmlTo(long start, Writer w) throws IOException {
+            ConsoleAnnotationOutputStream<T> caos = new ConsoleAnnotationOutputStream<>(w, ConsoleAnnotator.initial(context), context, StandardCharsets.UTF_8);
+            try (BufferedReader index = index()) {
+                NodeSpans spans = new NodeSpans(index, start, caos, w);
+                long r = writeRawLogTo(start, spans);
+                spans.finish();
+                caos.flush();
+                return r;
+            }
+        }
+
+        @Override public void doProgressText(StaplerRequest req, StaplerResponse rsp) throws IOException {
+            setContentType(rsp);
+            rsp.setStatus(HttpServletResponse.SC_OK);
+            long start = 0;
+            String s = req.getParameter("start");
+            if (s != null) {
+                start = Long.parseLong(s);
+            }
+            if (length() < start) {
+                start = 0;
+            }
+            StringWriter spool = new StringWriter();
+            long r = writeLogTo(start, spool);
+            rsp.addHeader("X-Text-Size", String.valueOf(r));
+            rsp.getWriter().write(spool.toString());
+        }
+
+    }
+
+    /** Passes raw bytes to the annotator, switching spans at the first line start at or after each transition in {@code log-index}. */
+    private static final class NodeSpans extends OutputStream {
+
+        private final BufferedReader index;
+        private final OutputStream caos;
+        private final Writer w;
+        private long pos;
+        private long nextTransition = -1;
+        private String nextId;
+        private boolean eof;
+        private boolean pending;
+        private String pendingId;
+        private String current;
+        private boolean atLineStart = true;
+
+        NodeSpans(BufferedReader index, long start, OutputStream caos, Writer w) throws IOException {
+            this.index = index;
+            this.caos = caos;
+            this.w = w;
+            pos = start;
+            readNext();
+        }
+
+        private void readNext() throws IOException {
+            String line = index.readLine();
+            if (line == null) {
+                eof = true;
+                return;
+            }
+            int space = line.indexOf(' ');
+            try {
+                nextTransition = Long.parseLong(space == -1 ? line : line.substring(0, space));
+            } catch (NumberFormatException x) {
+                eof = true;
+                return;
+            }
+            nextId = space == -1 ? null : line.substring(space + 1);
+        }
+
+        @Override public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override public void write(byte[] b, int off, int len) throws IOException {
+            int end = off + len;
+            while (off < end) {
+                while (!eof && nextTransition <= pos) {
+                    pending = true;
+                    pendingId = nextId;
+                    readNext();
+                }
+                if (pending && atLineStart) {
+                    switchTo(pendingId);
+                    pending = false;
+                }
+                int limit = eof ? end : (int) Math.min(end, off + (nextTransition - pos));
+                int stop = off;
+                while (stop < limit && b[stop] != '\n') {
+                    stop++;
+                }
+                if (stop < limit) {
+                    stop++;
+                }
+                caos.write(b, off, stop - off);
+                pos += stop - off;
+                atLineStart = b[stop - 1] == '\n';
+                off = stop;
+            }
+        }
+
+        private void switchTo(String id) throws IOException {
+            if (current != null) {
+                w.write("</span>");
+            }
+            current = id;
+            if (id != null) {
+                w.write("<span class=\"pipeline-node-" + id + "\">");
+            }
+        }
+
+        void finish() throws IOException {
+            if (current != null) {
+                caos.flush();
+                w.write("</span>");
+            }
+        }
+
+    }
+
+    /** Compresses the log of a completed build shortly, if so configured. */
+    static void finished(@NonNull WorkflowRun run) {
+        if (COMPRESS_ON_FINISH) {
+            Timer.get().schedule(() -> compress(run), DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Rewrites the plain log of a completed build as frames, unless it is still being written,
+     * is already compressed, or is kept elsewhere than in the build directory.
+     * @return whether the log was compressed
+     */
+    static boolean compress(@NonNull WorkflowRun run) {
+        return !run.isLogUpdated() && compress(run.getRootDir(), run.toString());
+    }
+
+    /** Like {@link #compress(WorkflowRun)}, given a build directory known to belong to a completed build. */
+    private static boolean compress(@NonNull File dir, @NonNull String run) {
+        File plain = new File(dir, "log");
+        if (!plain.isFile() || FramedLog.exists(dir) || !COMPRESSING.add(dir.getPath())) {
+            return false;
+        }
+        try {
+            long before = plain.length();
+            long after = FramedLog.compress(dir, FramedLog.Codec.of(CODEC), FRAME_SIZE);
+            compressed.incrementAndGet();
+            bytesBefore.addAndGet(before);
+            bytesAfter.addAndGet(after);
+            LOGGER.log(Level.FINE, "compressed log of {0} from {1} to {2} bytes", new Object[] {run, before, after});
+            return true;
+        } catch (IOException | RuntimeException x) {
+            LOGGER.log(Level.WARNING, "failed to compress log of " + run, x);
+            return false;
+        } finally {
+            COMPRESSING.remove(dir.getPath());
+        }
+    }
+
+    /** Number of build logs compressed. */
+    public static long getCompressed() {
+        return compressed.get();
+    }
+
+    /** Total size of build logs before compression. */
+    public static long getBytesBefore() {
+        return bytesBefore.get();
+    }
+
+    /** Total size of build logs after compression. */
+    public static long getBytesAfter() {
+        return bytesAfter.get();
+    }
+
+    /** Number of frames inflated to serve reads. */
+    public static long getFramesRead() {
+        return FramedLog.getFramesRead();
+    }
+
+    @Extension public static final class Factory implements LogStorageFactory {
+        @CheckForNull
+        @Override public LogStorage forBuild(@NonNull FlowExecutionOwner b) {
+            try {
+                File dir = b.getRootDir();
+                if (FramedLog.exists(dir) && !new File(dir, "log").exists()) {
+                    return new FramedLogStorage(dir, FramedLog.open(dir));
+                }
+            } catch (IOException x) {
+                LOGGER.log(Level.WARNING, "could not open compressed log of " + b, x);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Compresses the logs of existing completed builds, a batch at a time, if {@link #MIGRATE} is set.
+     * Walks build directories without loading the builds, taking a {@link RunSummary} file as proof of completion;
+     * builds completed before summaries existed are thus left alone until something loads them.
+     */
+    @Extension public static final class Migration extends AsyncPeriodicWork {
+
+        public Migration() {
+            super("Pipeline log compression");
+        }
+
+        @Override public long getRecurrencePeriod() {
+            return HOUR;
+        }
+
+        @Override protected void execute(TaskListener listener) {
+            if (!MIGRATE) {
+                return;
+            }
+            int done = 0;
+            for (WorkflowJob job : Jenkins.get().allItems(WorkflowJob.class)) {
+                File[] dirs = job.getBuildDir().listFiles(f -> f.getName().matches("[0-9]+") && new File(f, "log").isFile() && !FramedLog.exists(f)
+                        && new File(f, RunSummary.FILE_NAME).isFile());
+                if (dirs == null) {
+                    continue;
+                }
+                for (File dir : dirs) {
+                    if (done >= MIGRATE_BATCH) {
+                        listener.getLogger().println("Compressed " + done + " build logs; continuing next time");
+                        return;
+                    }
+                    if (compress(dir, job.getFullName() + " #" + dir.getName())) {
+                        done++;
+                    }
+                }
+            }
+            listener.getLogger().println("Compressed " + done + " build logs");
+        }
+
+    }
+
+    @Extension public static final class Metrics implements PersistenceMetrics.Source {
+        @Override public void contribute(@NonNull JSONObject json) {
+            JSONObject console = PersistenceMetrics.section(json, "console");
+            console.put("compressedLogs", getCompressed());
+            console.put("compressedBytesBefore", getBytesBefore());
+            console.put("compressedBytesAfter", getBytesAfter());
+            console.put("framesRead", getFramesRead());
+        }
+    }
+
+}
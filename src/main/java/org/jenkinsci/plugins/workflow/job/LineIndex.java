@@ -0,0 +1,255 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.util.SystemProperties;
+
+/**
+ * Sparse index from line number to byte offset in a build log, one entry every {@link #INTERVAL} lines,
+ * kept in a small file beside the log so that any page of lines can be served after reading at most one interval.
+ * Step output reaches the log through per-node listeners as well as the overall one (and possibly straight from agents),
+ * so rather than hooking a writer, the index catches up by scanning whatever was appended since it was last used.
+ * It is built or brought up to date on first use, so builds whose lines are never paged cost nothing;
+ * {@link #INDEX_ON_FINISH} instead completes it in the background (on {@link LogScans}) when each build finishes.
+ * Lines are terminated by {@code \n}.
+ */
+final class LineIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(LineIndex.class.getName());
+
+    static final String FILE_NAME = "log-lines.idx";
+
+    /** Lines between index entries. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static int INTERVAL = SystemProperties.getInteger(LineIndex.class.getName() + ".interval", 1000);
+
+    /** Whether to complete the index as soon as a build finishes, rather than when first requested. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static boolean INDEX_ON_FINISH = SystemProperties.getBoolean(LineIndex.class.getName() + ".indexOnFinish", false);
+
+    private static final int MAGIC = 0x574a4c49; // WJLI
+    private static final int MAX_PAGE = 10_000;
+
+    private final File file;
+    private boolean loaded;
+    private int interval;
+    /** Bytes of the log covered so far. */
+    private long scanned;
+    /** {@code \n} seen so far. */
+    private long newlines;
+    /** Offset just after the last {@code \n}. */
+    private long lastLineStart;
+    /** {@code offsets[i]} is where line {@code i * interval} starts. */
+    private long[] offsets = new long[16];
+    private int size;
+
+    LineIndex(@NonNull File buildDir) {
+        file = new File(buildDir, FILE_NAME);
+    }
+
+    /** Number of lines indexed so far, counting an unterminated last line. */
+    synchronized long getLineCount() {
+        return newlines + (scanned > lastLineStart ? 1 : 0);
+    }
+
+    /** Scans whatever has been appended to the log since last time, and saves the index if it grew. */
+    synchronized void catchUp(@NonNull WorkflowRun.WriteMethod raw) throws IOException {
+        load();
+        long before = scanned;
+        raw.writeLogTo(scanned, new OutputStream() {
+            @Override public void write(int b) {
+                scanned++;
+                if (b == '\n') {
+                    newline();
+                }
+            }
+            @Override public void write(byte[] b, int off, int len) {
+                for (int i = off; i < off + len; i++) {
+                    scanned++;
+                    if (b[i] == '\n') {
+                        newline();
+                    }
+                }
+            }
+        });
+        if (scanned != before) {
+            save();
+        }
+    }
+
+    private void newline() {
+        newlines++;
+        lastLineStart = scanned;
+        if (newlines % interval == 0) {
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            offsets[size++] = scanned;
+        }
+    }
+
+    /**
+     * Reads a page of lines, with console notes removed.
+     * @param from zero-based line number
+     * @param count maximum number of lines, capped at {@value #MAX_PAGE}
+     */
+    @NonNull List<String> lines(@NonNull WorkflowRun.WriteMethod raw, @NonNull Charset charset, long from, int count) throws IOException {
+        List<String> lines = new ArrayList<>();
+        int max = Math.min(count, MAX_PAGE);
+        if (max <= 0 || from < 0) {
+            return lines;
+        }
+        long start;
+        long skip;
+        synchronized (this) {
+            catchUp(raw);
+            int entry = (int) Math.min(from / interval, size - 1);
+            start = offsets[entry];
+            skip = from - (long) entry * interval;
+        }
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        long[] toSkip = {skip};
+        try {
+            raw.writeLogTo(start, new OutputStream() {
+                @Override public void write(int b) throws IOException {
+                    if (b == '\n') {
+                        if (toSkip[0] > 0) {
+                            toSkip[0]--;
+                        } else {
+                            lines.add(decode(line, charset));
+                            if (lines.size() == max) {
+                                throw new StopCopying();
+                            }
+                        }
+                        line.reset();
+                    } else if (toSkip[0] == 0) {
+                        line.write(b);
+                    }
+                }
+                @Override public void write(byte[] b, int off, int len) throws IOException {
+                    for (int i = off; i < off + len; i++) {
+                        write(b[i]);
+                    }
+                }
+            });
+            if (toSkip[0] == 0 && line.size() > 0) {
+                lines.add(decode(line, charset)); // unterminated last line
+            }
+        } catch (StopCopying x) {
+            // done
+        }
+        return lines;
+    }
+
+    private static String decode(ByteArrayOutputStream line, Charset charset) {
+        byte[] b = line.toByteArray();
+        int len = NoteStripper.strip(b, 0, b.length);
+        if (len > 0 && b[len - 1] == '\r') {
+            len--;
+        }
+        return new String(b, 0, len, charset);
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        reset();
+        try (InputStream is = Files.newInputStream(file.toPath()); DataInputStream in = new DataInputStream(is)) {
+            if (in.readInt() != MAGIC || in.readInt() != interval) {
+                LOGGER.log(Level.FINE, "rebuilding {0}", file);
+                return;
+            }
+            long s = in.readLong();
+            long n = in.readLong();
+            long l = in.readLong();
+            int count = in.readInt();
+            long[] o = new long[Math.max(16, count)];
+            for (int i = 0; i < count; i++) {
+                o[i] = in.readLong();
+            }
+            scanned = s;
+            newlines = n;
+            lastLineStart = l;
+            offsets = o;
+            size = count;
+        } catch (NoSuchFileException x) {
+            // first use
+        } catch (IOException x) {
+            LOGGER.log(Level.FINE, "rebuilding " + file, x);
+            reset();
+        }
+    }
+
+    private void reset() {
+        interval = Math.max(1, INTERVAL);
+        scanned = 0;
+        newlines = 0;
+        lastLineStart = 0;
+        offsets = new long[16];
+        offsets[0] = 0;
+        size = 1;
+    }
+
+    private void save() {
+        File tmp = new File(file.getPath() + ".tmp");
+        try {
+            try (OutputStream os = Files.newOutputStream(tmp.toPath()); DataOutputStream out = new DataOutputStream(os)) {
+                out.writeInt(MAGIC);
+                out.writeInt(interval);
+                out.writeLong(scanned);
+                out.writeLong(newlines);
+                out.writeLong(lastLineStart);
+                out.writeInt(size);
+                for (int i = 0; i < size; i++) {
+                    out.writeLong(offsets[i]);
+                }
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException x) {
+            LOGGER.log(Level.FINE, "could not save " + file, x);
+        }
+    }
+
+}
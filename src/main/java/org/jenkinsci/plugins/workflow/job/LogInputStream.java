@@ -0,0 +1,218 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Streams a build log with bounded memory.
+ * A producer task runs {@link WorkflowRun#writeLogTo(WorkflowRun.WriteMethod, OutputStream)}, so with the same termination rules,
+ * into fixed-size chunks handed over through a bounded queue; it blocks while the reader is behind.
+ * At most {@code capacity + 2} chunks are held at any time, however large the log.
+ */
+final class LogInputStream extends InputStream {
+
+    private static final Logger LOGGER = Logger.getLogger(LogInputStream.class.getName());
+
+    static final int CHUNK_SIZE = 64 * 1024;
+    static final int CAPACITY = 16;
+
+    /** How long the producer waits for a reader which neither reads nor closes before giving up. */
+    static final long STALL_TIMEOUT_MINUTES = 5;
+
+    private static final byte[] EOF = new byte[0];
+
+    private final BlockingQueue<byte[]> chunks;
+    private volatile boolean closed;
+    private volatile boolean done;
+    private volatile Throwable failure;
+    private byte[] current;
+    private int offset;
+
+    LogInputStream(@NonNull WorkflowRun.WriteMethod method, @NonNull ExecutorService executor, int chunkSize, int capacity) {
+        chunks = new ArrayBlockingQueue<>(capacity);
+        executor.submit(() -> {
+            try {
+                Sink sink = new Sink(chunkSize);
+                WorkflowRun.writeLogTo(method, sink);
+                sink.close(); // not in finally: no point waiting on the reader after a failure
+            } catch (StopCopying x) {
+                // reader went away
+            } catch (Throwable t) {
+                failure = t;
+            } finally {
+                done = true;
+                chunks.offer(EOF); // if full, the reader notices done once it has drained the queue
+            }
+        });
+    }
+
+    LogInputStream(@NonNull WorkflowRun.WriteMethod method, @NonNull ExecutorService executor) {
+        this(method, executor, CHUNK_SIZE, CAPACITY);
+    }
+
+    /** @return false at end of stream */
+    private boolean fill() throws IOException {
+        while (current == null || offset == current.length) {
+            if (current == EOF) {
+                return false;
+            }
+            if (closed) {
+                throw new IOException("stream closed");
+            }
+            byte[] next;
+            try {
+                next = chunks.poll(1, TimeUnit.SECONDS);
+            } catch (InterruptedException x) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            if (next == null) {
+                if (done && chunks.isEmpty()) {
+                    next = EOF;
+                } else {
+                    continue;
+                }
+            }
+            current = next;
+            offset = 0;
+            if (current == EOF) {
+                Throwable t = failure;
+                if (t != null) {
+                    throw t instanceof IOException ? (IOException) t : new IOException(t);
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return current[offset++] & 0xFF;
+    }
+
+    @Override public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int n = Math.min(len, current.length - offset);
+        System.arraycopy(current, offset, b, off, n);
+        offset += n;
+        return n;
+    }
+
+    @Override public int available() {
+        return current == null || current == EOF ? 0 : current.length - offset;
+    }
+
+    @Override public void close() {
+        closed = true;
+        chunks.clear(); // lets a blocked producer notice
+    }
+
+    private final class Sink extends OutputStream {
+
+        private final int chunkSize;
+        private byte[] buf;
+        private int count;
+
+        Sink(int chunkSize) {
+            this.chunkSize = chunkSize;
+            buf = new byte[chunkSize];
+        }
+
+        @Override public void write(int b) throws IOException {
+            if (count == chunkSize) {
+                emit();
+            }
+            buf[count++] = (byte) b;
+        }
+
+        @Override public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == chunkSize) {
+                    emit();
+                }
+                int n = Math.min(len, chunkSize - count);
+                System.arraycopy(b, off, buf, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        private void emit() throws IOException {
+            if (count == 0) {
+                return;
+            }
+            byte[] chunk = count == chunkSize ? buf : Arrays.copyOf(buf, count);
+            long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(STALL_TIMEOUT_MINUTES);
+            try {
+                while (!chunks.offer(chunk, 1, TimeUnit.SECONDS)) {
+                    if (closed) {
+                        throw new StopCopying(); // reader went away
+                    }
+                    if (System.nanoTime() - deadline > 0) {
+                        LOGGER.log(Level.FINE, "abandoning log stream after reader stalled for {0} minutes", STALL_TIMEOUT_MINUTES);
+                        throw new IOException("reader stalled");
+                    }
+                }
+            } catch (InterruptedException x) {
+                throw new InterruptedIOException();
+            }
+            if (closed) {
+                chunks.clear();
+                throw new StopCopying();
+            }
+            buf = new byte[chunkSize];
+            count = 0;
+        }
+
+        @Override public void close() throws IOException {
+            if (!closed) {
+                emit();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,435 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.jenkinsci.plugins.workflow.job;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.Extension;
+import hudson.Functions;
+import hudson.console.AnnotatedLargeText;
+import hudson.model.BuildListener;
+import hudson.model.StreamBuildListener;
+import hudson.model.InvisibleAction;
+import hudson.model.Queue;
+import hudson.model.TaskListener;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.util.SystemProperties;
+import net.sf.json.JSONObject;
+import org.jenkinsci.plugins.workflow.flow.FlowExecutionOwner;
+import org.jenkinsci.plugins.workflow.graph.FlowNode;
+import org.jenkinsci.plugins.workflow.job.properties.LogQuotaJobProperty;
+import org.jenkinsci.plugins.workflow.log.FileLogStorage;
+import org.jenkinsci.plugins.workflow.log.LogStorage;
+import org.jenkinsci.plugins.workflow.log.LogStorageFactory;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * Caps the bytes written to the log of a running build, from {@link LogQuotaJobProperty} or else {@link #MAX_BYTES}.
+ * Output is written as usual until the head of the log is full, at a line boundary;
+ * after that, a marker is printed and everything is only counted, except that the last {@link Retention#getTailBytes}
+ * are kept in memory and appended, after a second marker, when the overall log is closed.
+ * Applies to both the overall and per-step listeners, by wrapping the default file storage,
+ * so it has no effect when some other {@link LogStorageFactory} is in use.
+ */
+@Restricted(NoExternalUse.class)
+public final class LogQuota {
+
+    private static final Logger LOGGER = Logger.getLogger(LogQuota.class.getName());
+
+    /** Default maximum size of a build log, for jobs without {@link LogQuotaJobProperty}; zero or negative for no limit. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static long MAX_BYTES = SystemProperties.getLong(LogQuota.class.getName() + ".maxBytes", 0L);
+
+    /** Default amount of the end of the log to keep once {@link #MAX_BYTES} is reached. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static long TAIL_BYTES = SystemProperties.getLong(LogQuota.class.getName() + ".tailBytes", 1024 * 1024);
+
+    /** Upper bound on the tail of any build, since it is held in memory. */
+    private static final int MAX_TAIL_BYTES = 64 * 1024 * 1024;
+
+    private static final long MB = 1024 * 1024;
+
+    private static final AtomicLong truncated = new AtomicLong();
+    private static final AtomicLong skipped = new AtomicLong();
+
+    private final Retention retention;
+    /** Bytes of the head written so far. */
+    private long written;
+    private byte last = '\n';
+    /** Set once the head is full. */
+    private @CheckForNull Ring tail;
+    private boolean finished;
+
+    LogQuota(@NonNull Retention retention, long written) {
+        this.retention = retention;
+        this.written = written;
+        if (written >= retention.getHeadBytes()) {
+            tail = new Ring(retention.tailBytes); // resumed after the head was already full
+        }
+    }
+
+    /**
+     * Effective quota of a running build, fixed when first asked for and recorded as an action of the build.
+     * @return null if its log is not limited
+     */
+    static @CheckForNull LogQuota of(@NonNull WorkflowRun run) {
+        LogQuota quota = run.logQuota;
+        if (quota != null) {
+            return quota;
+        }
+        synchronized (LogQuota.class) {
+            quota = run.logQuota;
+            if (quota == null) {
+                Retention retention = run.getAction(Retention.class);
+                if (retention == null) {
+                    retention = retentionFor(run.getParent());
+                    if (retention == null) {
+                        return null;
+                    }
+                    run.addAction(retention);
+                }
+                quota = run.logQuota = new LogQuota(retention, new File(run.getRootDir(), "log").length());
+            }
+            return quota;
+        }
+    }
+
+    /** The limits which would apply to a new build of {@code job}, or null if unlimited. */
+    static @CheckForNull Retention retentionFor(@NonNull WorkflowJob job) {
+        long max = MAX_BYTES;
+        long tail = TAIL_BYTES;
+        LogQuotaJobProperty property = job.getProperty(LogQuotaJobProperty.class);
+        if (property != null) {
+            max = property.getMaxMegabytes() * MB;
+            tail = property.getTailMegabytes() * MB;
+        }
+        if (max <= 0) {
+            return null;
+        }
+        return new Retention(max, Math.max(0, Math.min(Math.min(tail, max / 2), MAX_TAIL_BYTES)));
+    }
+
+    synchronized void write(@NonNull OutputStream out, byte[] b, int off, int len) throws IOException {
+        if (len <= 0) {
+            return;
+        }
+        retention.totalBytes += len;
+        if (tail == null) {
+            long room = retention.getHeadBytes() - written;
+            if (len <= room) {
+                out.write(b, off, len);
+                written += len;
+                last = b[off + len - 1];
+                return;
+            }
+            int cut = 0;
+            for (int i = (int) room; i > 0; i--) {
+                if (b[off + i - 1] == '\n') {
+                    cut = i;
+                    break;
+                }
+            }
+            if (cut > 0) {
+                out.write(b, off, cut);
+                written += cut;
+                last = '\n';
+            }
+            off += cut;
+            len -= cut;
+            tail = new Ring(retention.tailBytes);
+            String marker = "[Log size limit of " + Functions.humanReadableByteSize(retention.limitBytes)
+                    + " reached: skipping further output except for the last " + Functions.humanReadableByteSize(retention.tailBytes)
+                    + ", which will be shown when the build completes]\n";
+            out.write(((last == '\n' ? "" : "\n") + marker).getBytes(StandardCharsets.UTF_8));
+            truncated.incrementAndGet();
+        }
+        if (finished) {
+            return; // something printed after the overall log was closed
+        }
+        long before = retention.skippedBytes;
+        tail.append(b, off, len);
+        retention.skippedBytes = Math.max(0, tail.count - tail.buf.length);
+        skipped.addAndGet(retention.skippedBytes - before);
+    }
+
+    /** Appends whatever is kept of the tail. */
+    synchronized void finish(@NonNull OutputStream out) throws IOException {
+        if (finished || tail == null) {
+            finished = true;
+            return;
+        }
+        finished = true;
+        byte[] kept = tail.contents();
+        int start = 0;
+        if (tail.count > kept.length) {
+            // start at a line boundary, so as not to show half of a console note
+            while (start < kept.length && kept[start++] != '\n') {
+                // skip
+            }
+        }
+        long before = retention.skippedBytes;
+        retention.skippedBytes = tail.count - (kept.length - start);
+        skipped.addAndGet(retention.skippedBytes - before);
+        if (retention.skippedBytes > 0) {
+            out.write(("[Skipped " + Functions.humanReadableByteSize(retention.skippedBytes) + " of log output]\n").getBytes(StandardCharsets.UTF_8));
+        }
+        out.write(kept, start, kept.length - start);
+        out.flush();
+        tail = new Ring(0);
+    }
+
+    /** Keeps the last bytes appended to it. */
+    private static final class Ring {
+
+        final byte[] buf;
+        int pos;
+        long count;
+
+        Ring(long size) {
+            buf = new byte[(int) size];
+        }
+
+        void append(byte[] b, int off, int len) {
+            count += len;
+            if (buf.length == 0) {
+                return;
+            }
+            if (len >= buf.length) {
+                System.arraycopy(b, off + len - buf.length, buf, 0, buf.length);
+                pos = 0;
+                return;
+            }
+            int first = Math.min(len, buf.length - pos);
+            System.arraycopy(b, off, buf, pos, first);
+            System.arraycopy(b, off + first, buf, 0, len - first);
+            pos = (pos + len) % buf.length;
+        }
+
+        byte[] contents() {
+            if (count < buf.length) {
+                byte[] r = new byte[(int) count];
+                System.arraycopy(buf, 0, r, 0, r.length);
+                return r;
+            }
+            byte[] r = new byte[buf.length];
+            System.arraycopy(buf, pos, r, 0, buf.length - pos);
+            System.arraycopy(buf, 0, r, buf.length - pos, pos);
+            return r;
+        }
+
+    }
+
+    /**
+     * Limits in effect for a build and how much of its output was skipped, recorded with it and exported.
+     * Counters are updated under the lock of the {@link LogQuota} and may be read slightly stale.
+     */
+    @ExportedBean
+    public static final class Retention extends InvisibleAction {
+
+        private final long limitBytes;
+        private final long tailBytes;
+        private long totalBytes;
+        private long skippedBytes;
+
+        Retention(long limitBytes, long tailBytes) {
+            this.limitBytes = limitBytes;
+            this.tailBytes = tailBytes;
+        }
+
+        /** Maximum size of the log, not counting markers. */
+        @Exported public long getLimitBytes() {
+            return limitBytes;
+        }
+
+        /** Size of the start of the log kept in full. */
+        @Exported public long getHeadBytes() {
+            return limitBytes - tailBytes;
+        }
+
+        /** Size of the end of the log kept once the head is full. */
+        @Exported public long getTailBytes() {
+            return tailBytes;
+        }
+
+        /** Bytes printed to the log, whether written or not. */
+        @Exported public long getTotalBytes() {
+            return totalBytes;
+        }
+
+        /** Bytes printed to the log but not written. */
+        @Exported public long getSkippedBytes() {
+            return skippedBytes;
+        }
+
+        /** Whether the head has been filled, so that the log is or will be incomplete. */
+        @Exported public boolean isTruncated() {
+            return totalBytes > getHeadBytes();
+        }
+
+    }
+
+    /** Wraps a listener of the default storage so that everything printed to it goes through the quota. */
+    static final class Listener implements BuildListener, AutoCloseable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final TaskListener delegate;
+        private final transient LogQuota quota;
+        private final transient boolean overall;
+        private final transient OutputStream out;
+        private final transient PrintStream logger;
+
+        Listener(@NonNull TaskListener delegate, @NonNull LogQuota quota, boolean overall) {
+            this.delegate = delegate;
+            this.quota = quota;
+            this.overall = overall;
+            PrintStream target = delegate.getLogger();
+            out = new OutputStream() {
+                @Override public void write(int b) throws IOException {
+                    write(new byte[] {(byte) b}, 0, 1);
+                }
+                @Override public void write(@NonNull byte[] b, int off, int len) throws IOException {
+                    quota.write(target, b, off, len);
+                }
+                @Override public void flush() throws IOException {
+                    target.flush();
+                }
+            };
+            logger = new PrintStream(out, false, StandardCharsets.UTF_8);
+        }
+
+        @NonNull
+        @Override public PrintStream getLogger() {
+            return logger;
+        }
+
+        @Override public void close() throws Exception {
+            logger.flush();
+            try {
+                if (overall) {
+                    quota.finish(delegate.getLogger());
+                }
+            } finally {
+                if (delegate instanceof AutoCloseable) {
+                    ((AutoCloseable) delegate).close();
+                }
+            }
+        }
+
+        /** Sent to agents as a plain listener whose output comes back through the quota. */
+        private Object writeReplace() {
+            logger.flush();
+            return new StreamBuildListener(out, StandardCharsets.UTF_8);
+        }
+
+    }
+
+    /** The default file storage with {@link Listener}s around its listeners. */
+    static final class Storage implements LogStorage {
+
+        private final LogStorage delegate;
+        private final LogQuota quota;
+
+        Storage(LogStorage delegate, LogQuota quota) {
+            this.delegate = delegate;
+            this.quota = quota;
+        }
+
+        @NonNull LogStorage delegate() {
+            return delegate;
+        }
+
+        @NonNull
+        @Override public BuildListener overallListener() throws IOException, InterruptedException {
+            return new Listener(delegate.overallListener(), quota, true);
+        }
+
+        @NonNull
+        @Override public TaskListener nodeListener(@NonNull FlowNode node) throws IOException, InterruptedException {
+            return new Listener(delegate.nodeListener(node), quota, false);
+        }
+
+        @NonNull
+        @Override public AnnotatedLargeText<FlowExecutionOwner.Executable> overallLog(@NonNull FlowExecutionOwner.Executable build, boolean complete) {
+            return delegate.overallLog(build, complete);
+        }
+
+        @NonNull
+        @Override public AnnotatedLargeText<FlowNode> stepLog(@NonNull FlowNode node, boolean complete) {
+            return delegate.stepLog(node, complete);
+        }
+
+    }
+
+    /** Consulted after any other factory, so that the quota only applies where the default storage would be used. */
+    @Extension(ordinal = -100) public static final class Factory implements LogStorageFactory {
+        @CheckForNull
+        @Override public LogStorage forBuild(@NonNull FlowExecutionOwner b) {
+            try {
+                Queue.Executable executable = b.getExecutable();
+                if (executable instanceof WorkflowRun && ((WorkflowRun) executable).isLogUpdated()) {
+                    LogQuota quota = of((WorkflowRun) executable);
+                    if (quota != null) {
+                        return new Storage(FileLogStorage.forFile(new File(b.getRootDir(), "log")), quota);
+                    }
+                }
+            } catch (IOException x) {
+                LOGGER.log(Level.WARNING, "could not check the log quota of " + b, x);
+            }
+            return null;
+        }
+    }
+
+    /** Number of builds whose log reached its limit. */
+    static long getTruncated() {
+        return truncated.get();
+    }
+
+    /** Bytes printed to build logs but not written because of a limit. */
+    static long getSkipped() {
+        return skipped.get();
+    }
+
+    @Extension public static final class Metrics implements PersistenceMetrics.Source {
+        @Override public void contribute(@NonNull JSONObject json) {
+            JSONObject logWriter = PersistenceMetrics.section(json, "logWriter");
+            logWriter.put("quotaTruncated", getTruncated());
+            logWriter.put("quotaSkipped", getSkipped());
+        }
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.jenkinsci.plugins.workflow.job;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.Extension;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.util.SystemProperties;
+import net.sf.json.JSONObject;
+
+/**
+ * Small bounded pool for background passes over the logs of completed builds, kept off the shared {@link jenkins.util.Timer}.
+ * Each task only precomputes something which can also be computed on demand, so tasks beyond the queue limit are dropped.
+ */
+final class LogScans {
+
+    private static final Logger LOGGER = Logger.getLogger(LogScans.class.getName());
+
+    /** Number of logs scanned concurrently. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static int THREADS = SystemProperties.getInteger(LogScans.class.getName() + ".threads", 1);
+
+    /** Number of scans which may wait for a thread before more are dropped. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static int QUEUE = SystemProperties.getInteger(LogScans.class.getName() + ".queue", 100);
+
+    private static final AtomicLong dropped = new AtomicLong();
+
+    private static ThreadPoolExecutor pool;
+
+    private LogScans() {}
+
+    private static synchronized ThreadPoolExecutor pool() {
+        if (pool == null) {
+            pool = new ThreadPoolExecutor(THREADS, THREADS, 1, TimeUnit.MINUTES, new ArrayBlockingQueue<>(QUEUE),
+                    new NamingThreadFactory(new DaemonThreadFactory(), "LogScans"));
+            pool.allowCoreThreadTimeOut(true);
+        }
+        return pool;
+    }
+
+    /** Runs a scan of the log of {@code run} in the background, unless too many are already waiting. */
+    static void submit(@NonNull WorkflowRun run, @NonNull String what, @NonNull Task task) {
+        try {
+            pool().execute(() -> {
+                try {
+                    task.run();
+                } catch (Exception x) {
+                    LOGGER.log(Level.FINE, "failed to " + what + " for " + run, x);
+                }
+            });
+        } catch (RejectedExecutionException x) {
+            dropped.incrementAndGet();
+            LOGGER.log(Level.FINE, "too many scans queued, not trying to {0} for {1}", new Object[] {what, run});
+        }
+    }
+
+    interface Task {
+        void run() throws Exception;
+    }
+
+    /** Number of scans dropped because the queue was full. */
+    static long getDropped() {
+        return dropped.get();
+    }
+
+    @Extension public static final class Metrics implements PersistenceMetrics.Source {
+        @Override public void contribute(@NonNull JSONObject json) {
+            PersistenceMetrics.section(json, "console").put("scansDropped", getDropped());
+        }
+    }
+
+}
@@ -0,0 +1,371 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import jenkins.util.SystemProperties;
+import net.sf.json.JSONObject;
+
+/**
+ * Searches the logs of several builds at once for lines containing some text or matching a pattern.
+ * Each build is scanned on a shared bounded pool, reading raw bytes line by line;
+ * console notes are removed from the bytes of each line, a literal query is matched against those, and only lines which match are decoded.
+ * Matches are handed to the caller as they are found, and every scan stops once enough have been found.
+ * Each search is also bounded by {@link #TIMEOUT_MILLIS} and {@link #MAX_BYTES}, checked between lines
+ * and, for a regular expression, while it is being matched, so that a pathological pattern cannot hold the pool.
+ */
+final class LogSearch {
+
+    private static final Logger LOGGER = Logger.getLogger(LogSearch.class.getName());
+
+    /** Number of builds scanned concurrently across all searches. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static int THREADS = SystemProperties.getInteger(LogSearch.class.getName() + ".threads", 4);
+
+    /** Time after which a search stops, with whatever it has found. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static long TIMEOUT_MILLIS = SystemProperties.getLong(LogSearch.class.getName() + ".timeoutMillis", 30_000L);
+
+    /** Raw log bytes read by one search, across all its builds, after which it stops. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static long MAX_BYTES = SystemProperties.getLong(LogSearch.class.getName() + ".maxBytes", 1024L * 1024 * 1024);
+
+    /** Most builds one search may cover. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static int MAX_BUILDS = SystemProperties.getInteger(LogSearch.class.getName() + ".maxBuilds", 100);
+
+    /** Lines longer than this are only matched on their first part. */
+    static final int MAX_LINE = 64 * 1024;
+    /** Length of the text returned for each match. */
+    static final int MAX_SNIPPET = 500;
+
+    private static ExecutorService pool;
+
+    private static synchronized ExecutorService pool() {
+        if (pool == null) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(THREADS, THREADS, 1, TimeUnit.MINUTES, new LinkedBlockingQueue<>(),
+                    new NamingThreadFactory(new DaemonThreadFactory(), "LogSearch"));
+            executor.allowCoreThreadTimeOut(true);
+            pool = executor;
+        }
+        return pool;
+    }
+
+    static final class Match {
+        final int build;
+        final long line;
+        final String text;
+        Match(int build, long line, String text) {
+            this.build = build;
+            this.line = line;
+            this.text = text;
+        }
+        JSONObject toJSON() {
+            JSONObject json = new JSONObject();
+            json.put("build", build);
+            json.put("line", line);
+            json.put("text", text);
+            return json;
+        }
+    }
+
+    @FunctionalInterface interface Sink {
+        void accept(Match match) throws IOException;
+    }
+
+    private static final Match END = new Match(0, 0, null);
+
+    /** Thrown from within a regular expression match once the search is out of time. */
+    private static final class OutOfTime extends RuntimeException {
+        @Override public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+        private static final long serialVersionUID = 1L;
+    }
+
+    /** Shared by the scans of one search. */
+    private static final class Budget {
+
+        final AtomicBoolean stopped = new AtomicBoolean();
+        final AtomicBoolean exhausted = new AtomicBoolean();
+        private final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MILLIS);
+        private final AtomicLong bytes = new AtomicLong();
+
+        /** Counts bytes read, returning false once the search should stop. */
+        boolean read(int len) {
+            if (stopped.get()) {
+                return false;
+            }
+            if (bytes.addAndGet(len) > MAX_BYTES || System.nanoTime() - deadline > 0) {
+                exhaust();
+                return false;
+            }
+            return true;
+        }
+
+        boolean outOfTime() {
+            if (stopped.get()) {
+                return true;
+            }
+            if (System.nanoTime() - deadline > 0) {
+                exhaust();
+                return true;
+            }
+            return false;
+        }
+
+        private void exhaust() {
+            exhausted.set(true);
+            stopped.set(true);
+        }
+
+    }
+
+    /**
+     * Text given to a regular expression, checking every so often whether the search is out of time,
+     * since backtracking can take practically for ever on a single line.
+     */
+    private static final class Bounded implements CharSequence {
+
+        private final CharSequence text;
+        private final Budget budget;
+        private int calls;
+
+        Bounded(CharSequence text, Budget budget) {
+            this.text = text;
+            this.budget = budget;
+        }
+
+        @Override public int length() {
+            return text.length();
+        }
+
+        @Override public char charAt(int index) {
+            if ((++calls & 0xFFF) == 0 && budget.outOfTime()) {
+                throw new OutOfTime();
+            }
+            return text.charAt(index);
+        }
+
+        @Override public CharSequence subSequence(int start, int end) {
+            return new Bounded(text.subSequence(start, end), budget);
+        }
+
+        @Override public String toString() {
+            return text.toString();
+        }
+
+    }
+
+    private final String literal;
+    private final byte[] literalBytes;
+    private final Pattern pattern;
+
+    /** Searches for lines containing {@code query}, or if {@code regex} is set, having some match of it. */
+    LogSearch(@NonNull String query, boolean regex) {
+        if (regex) {
+            literal = null;
+            literalBytes = null;
+            pattern = Pattern.compile(query);
+        } else {
+            literal = query;
+            literalBytes = query.getBytes(StandardCharsets.UTF_8);
+            pattern = null;
+        }
+    }
+
+    /**
+     * Searches the given builds, passing up to {@code limit} matches to {@code sink} on the calling thread as they are found.
+     * Matches within one build arrive in order; builds are interleaved.
+     * @return false if the search was cut short by {@link #TIMEOUT_MILLIS} or {@link #MAX_BYTES}
+     */
+    boolean search(@NonNull List<WorkflowRun> runs, int limit, @NonNull Sink sink) throws IOException, InterruptedException {
+        BlockingQueue<Match> matches = new LinkedBlockingQueue<>();
+        Budget budget = new Budget();
+        AtomicBoolean stopped = budget.stopped;
+        AtomicInteger remaining = new AtomicInteger(runs.size());
+        AtomicInteger queued = new AtomicInteger();
+        Future<?>[] futures = new Future<?>[runs.size()];
+        for (int i = 0; i < runs.size(); i++) {
+            WorkflowRun run = runs.get(i);
+            futures[i] = pool().submit(() -> {
+                try {
+                    scan(run, budget, () -> {
+                        int n = queued.incrementAndGet();
+                        if (n >= limit) {
+                            stopped.set(true);
+                        }
+                        return n <= limit;
+                    }, matches);
+                } catch (StopCopying | OutOfTime x) {
+                    // enough
+                } catch (IOException | RuntimeException x) {
+                    LOGGER.log(Level.FINE, "could not search " + run, x);
+                } finally {
+                    if (remaining.decrementAndGet() == 0) {
+                        matches.add(END);
+                    }
+                }
+            });
+        }
+        int found = 0;
+        try {
+            while (found < limit) {
+                Match match = matches.take();
+                if (match == END) {
+                    break;
+                }
+                sink.accept(match);
+                found++;
+            }
+        } finally {
+            stopped.set(true);
+            for (Future<?> future : futures) {
+                future.cancel(false);
+            }
+        }
+        return !budget.exhausted.get();
+    }
+
+    private void scan(WorkflowRun run, Budget budget, BooleanSupplier reserve, BlockingQueue<Match> matches) throws IOException {
+        if (budget.stopped.get()) {
+            return;
+        }
+        Charset charset = run.getCharset();
+        int number = run.getNumber();
+        Lines lines = new Lines(budget) {
+            @Override void line(byte[] buf, int len, long lineNumber) {
+                len = NoteStripper.strip(buf, 0, len);
+                if (literalBytes != null && indexOf(buf, len, literalBytes) == -1) {
+                    return;
+                }
+                String text = new String(buf, 0, len, charset);
+                if ((literal != null ? text.contains(literal) : pattern.matcher(new Bounded(text, budget)).find()) && reserve.getAsBoolean()) {
+                    matches.add(new Match(number, lineNumber, text.length() > MAX_SNIPPET ? text.substring(0, MAX_SNIPPET) : text));
+                }
+            }
+        };
+        WorkflowRun.writeLogTo(run.getLogText()::writeRawLogTo, lines);
+        lines.finish();
+    }
+
+    static int indexOf(byte[] buf, int len, byte[] target) {
+        outer: for (int i = 0; i <= len - target.length; i++) {
+            for (int j = 0; j < target.length; j++) {
+                if (buf[i + j] != target[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /** Splits raw output into lines, without the line terminator, numbered from one. */
+    private abstract static class Lines extends OutputStream {
+
+        private final Budget budget;
+        private byte[] line = new byte[256];
+        private int size;
+        private long lineNumber = 1;
+
+        Lines(Budget budget) {
+            this.budget = budget;
+        }
+
+        abstract void line(byte[] buf, int len, long lineNumber);
+
+        @Override public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override public void write(byte[] b, int off, int len) throws IOException {
+            if (!budget.read(len)) {
+                throw new StopCopying();
+            }
+            int end = off + len;
+            int start = off;
+            for (int i = off; i < end; i++) {
+                if (b[i] == '\n') {
+                    append(b, start, i - start);
+                    eol();
+                    start = i + 1;
+                }
+            }
+            append(b, start, end - start);
+        }
+
+        private void append(byte[] b, int off, int len) {
+            len = Math.min(len, MAX_LINE - size);
+            if (len <= 0) {
+                return;
+            }
+            if (size + len > line.length) {
+                line = Arrays.copyOf(line, Math.min(MAX_LINE, Math.max(line.length * 2, size + len)));
+            }
+            System.arraycopy(b, off, line, size, len);
+            size += len;
+        }
+
+        private void eol() {
+            int len = size;
+            if (len > 0 && line[len - 1] == '\r') {
+                len--;
+            }
+            line(line, len, lineNumber++);
+            size = 0;
+        }
+
+        void finish() {
+            if (size > 0) {
+                eol();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,173 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Functions;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the last lines of a log by fetching fixed-size blocks backward from its end,
+ * so the cost depends on how much text those lines take up rather than on the size of the log.
+ * Console notes are stripped only from the lines returned.
+ */
+final class LogTail {
+
+    static final int BLOCK_SIZE = 8192;
+
+    private LogTail() {}
+
+    /**
+     * Same contract as {@link hudson.model.Run#getLog(int)}: at most {@code maxLines} lines,
+     * the first replaced by a truncation marker if there were more.
+     * @param length current size in bytes of the raw log
+     * @param raw writes the raw log from a byte offset
+     */
+    static @NonNull List<String> tail(long length, @NonNull WorkflowRun.WriteMethod raw, @NonNull Charset charset, int maxLines) throws IOException {
+        List<String> lines = new ArrayList<>();
+        if (maxLines <= 0 || length <= 0) {
+            return lines;
+        }
+        byte[] buf = new byte[0]; // blocks read so far occupy buf[start, buf.length), filled from the end
+        int start = 0;
+        long pos = length;
+        int found = 0; // line breaks seen before the last line
+        int keepTail = -1; // bytes from the first kept line to the end, if truncated
+        while (true) {
+            int blockLen = (int) Math.min(BLOCK_SIZE, pos);
+            pos -= blockLen;
+            byte[] block = readBlock(raw, pos, blockLen);
+            if (block.length < blockLen) {
+                throw new IOException("log shrank while reading");
+            }
+            boolean first = start == buf.length;
+            if (start < block.length) { // grow geometrically, keeping the data at the end
+                int size = buf.length - start;
+                byte[] grown = new byte[Math.max(2 * buf.length, size + block.length)];
+                System.arraycopy(buf, start, grown, grown.length - size, size);
+                start = grown.length - size;
+                buf = grown;
+            }
+            start -= block.length;
+            System.arraycopy(block, 0, buf, start, block.length);
+            int scan = start + block.length;
+            if (first) { // a final line terminator does not start another line
+                scan = buf.length;
+                if (scan > start && (buf[scan - 1] == '\n' || buf[scan - 1] == '\r')) {
+                    scan--;
+                }
+            }
+            for (int i = scan; i > start; i--) {
+                if (isLineBreak(buf, i - 1)) {
+                    found++;
+                    if (found == maxLines - 1) {
+                        keepTail = buf.length - i;
+                    }
+                    if (found == maxLines) {
+                        if (maxLines == 1) {
+                            keepTail = 0;
+                        }
+                        int keepFrom = buf.length - keepTail;
+                        lines.add("[...truncated " + Functions.humanReadableByteSize(pos + keepFrom - start) + "...]");
+                        lines.addAll(decode(buf, keepFrom, charset));
+                        return lines;
+                    }
+                }
+            }
+            if (pos == 0) {
+                lines.addAll(decode(buf, start, charset));
+                return lines;
+            }
+        }
+    }
+
+    /**
+     * Finds where the line containing {@code length} starts, reading blocks backward as {@link #tail} does,
+     * so that output read from there on starts neither mid-line nor inside a console note.
+     * @return the offset just after the last {@code \n} before {@code length}, or 0 if there is none
+     */
+    static long lineStart(long length, @NonNull WorkflowRun.WriteMethod raw) throws IOException {
+        long pos = length;
+        while (pos > 0) {
+            int blockLen = (int) Math.min(BLOCK_SIZE, pos);
+            pos -= blockLen;
+            byte[] block = readBlock(raw, pos, blockLen);
+            for (int i = block.length; i > 0; i--) {
+                if (block[i - 1] == '\n') {
+                    return pos + i;
+                }
+            }
+        }
+        return 0;
+    }
+
+    /** Line terminators as understood by {@link BufferedReader#readLine}: {@code \n}, {@code \r}, or {@code \r\n} (counted once). */
+    private static boolean isLineBreak(byte[] data, int i) {
+        return data[i] == '\n' || (data[i] == '\r' && (i + 1 == data.length || data[i + 1] != '\n'));
+    }
+
+    private static byte[] readBlock(WorkflowRun.WriteMethod raw, long start, int len) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(len);
+        OutputStream limited = new OutputStream() {
+            @Override public void write(int b) throws IOException {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+            @Override public void write(byte[] b, int off, int n) throws IOException {
+                int room = len - baos.size();
+                baos.write(b, off, Math.min(n, room));
+                if (n >= room) {
+                    throw new StopCopying();
+                }
+            }
+        };
+        try {
+            raw.writeLogTo(start, limited);
+        } catch (StopCopying x) {
+            // got what we needed
+        }
+        return baos.toByteArray();
+    }
+
+    /** Splits into lines with console notes removed; modifies {@code data}. */
+    private static List<String> decode(byte[] data, int from, Charset charset) throws IOException {
+        List<String> lines = new ArrayList<>();
+        int len = NoteStripper.strip(data, from, data.length - from);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(data, from, len), charset))) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+}
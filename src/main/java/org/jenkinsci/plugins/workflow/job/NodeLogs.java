@@ -0,0 +1,230 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.console.AnnotatedLargeText;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.jenkinsci.plugins.workflow.actions.LabelAction;
+import org.jenkinsci.plugins.workflow.actions.ThreadNameAction;
+import org.jenkinsci.plugins.workflow.flow.FlowExecution;
+import org.jenkinsci.plugins.workflow.graph.BlockEndNode;
+import org.jenkinsci.plugins.workflow.graph.BlockStartNode;
+import org.jenkinsci.plugins.workflow.graph.FlowNode;
+import org.jenkinsci.plugins.workflow.graphanalysis.DepthFirstScanner;
+import org.jenkinsci.plugins.workflow.log.FileLogStorage;
+import org.jenkinsci.plugins.workflow.log.LogStorage;
+
+/**
+ * Output of a single node, or of everything inside a block such as a stage, read through {@link LogStorage#stepLog}.
+ * The default file storage keeps the byte ranges of each node’s output in its {@code log-index} sidecar,
+ * so this does not scan or re-annotate the whole console,
+ * and where that storage is known to be in use the index is read once for all the nodes requested.
+ */
+final class NodeLogs {
+
+    private NodeLogs() {}
+
+    /** Finds a node by ID, or else the first stage or parallel branch with the given name. */
+    static @CheckForNull FlowNode find(@NonNull FlowExecution execution, @CheckForNull String id, @CheckForNull String stage) throws IOException {
+        if (id != null) {
+            return execution.getNode(id);
+        }
+        if (stage != null) {
+            FlowNode found = null;
+            for (FlowNode node : new DepthFirstScanner().allNodes(execution)) {
+                if (node instanceof BlockStartNode && node.getAction(LabelAction.class) != null && stage.equals(label(node))) {
+                    if (found == null || compare(node, found) < 0) {
+                        found = node;
+                    }
+                }
+            }
+            return found;
+        }
+        return null;
+    }
+
+    private static String label(FlowNode node) {
+        ThreadNameAction thread = node.getAction(ThreadNameAction.class);
+        return thread != null ? thread.getThreadName() : node.getDisplayName();
+    }
+
+    /**
+     * The node itself, plus for a block start everything up to and including its end, in order of creation.
+     * With the standard engine’s numeric IDs only the nodes created between the start and the end are looked at;
+     * otherwise the graph is walked once, checking each node’s enclosing IDs.
+     */
+    static @NonNull List<FlowNode> nodesOf(@NonNull FlowExecution execution, @NonNull FlowNode node) throws IOException {
+        if (!(node instanceof BlockStartNode)) {
+            return Collections.singletonList(node);
+        }
+        String startId = node.getId();
+        BlockEndNode<?> end = execution.getEndNode((BlockStartNode) node);
+        String endId = end != null ? end.getId() : null;
+        List<FlowNode> nodes = new ArrayList<>();
+        try {
+            int first = Integer.parseInt(startId);
+            int last;
+            if (endId != null) {
+                last = Integer.parseInt(endId);
+            } else {
+                last = first;
+                for (FlowNode head : execution.getCurrentHeads()) {
+                    last = Math.max(last, Integer.parseInt(head.getId()));
+                }
+            }
+            nodes.add(node);
+            for (int i = first + 1; i <= last; i++) {
+                FlowNode n = execution.getNode(Integer.toString(i));
+                if (n != null && (n.getId().equals(endId) || n.getAllEnclosingIds().contains(startId))) {
+                    nodes.add(n);
+                }
+            }
+            return nodes;
+        } catch (NumberFormatException x) {
+            nodes.clear();
+        }
+        for (FlowNode n : new DepthFirstScanner().allNodes(execution)) {
+            if (n.getId().equals(startId) || n.getId().equals(endId) || n.getAllEnclosingIds().contains(startId)) {
+                nodes.add(n);
+            }
+        }
+        nodes.sort(NodeLogs::compare);
+        return nodes;
+    }
+
+    /** Node IDs are allocated in sequence, and are numeric for the standard engine. */
+    private static int compare(FlowNode a, FlowNode b) {
+        try {
+            return Integer.compare(Integer.parseInt(a.getId()), Integer.parseInt(b.getId()));
+        } catch (NumberFormatException x) {
+            return Comparator.<String>naturalOrder().compare(a.getId(), b.getId());
+        }
+    }
+
+    /**
+     * Writes the plain-text output of the given nodes.
+     * For the default file storage, or once the log has been compressed, the {@code log-index} is read once,
+     * collecting the ranges of every node before copying them in node order;
+     * for anything else, each node is read through {@link LogStorage#stepLog}.
+     */
+    static void write(@NonNull WorkflowRun run, @NonNull LogStorage storage, @NonNull List<FlowNode> nodes, boolean complete, @NonNull OutputStream os) throws IOException {
+        File dir = run.getRootDir();
+        File index = new File(dir, "log-index");
+        if (!index.isFile() || !(unwrap(storage) instanceof FileLogStorage || storage instanceof FramedLogStorage)) {
+            for (FlowNode node : nodes) {
+                AnnotatedLargeText<FlowNode> text = storage.stepLog(node, complete);
+                WorkflowRun.writeLogTo(text::writeLogTo, os);
+            }
+            return;
+        }
+        long length = storage.overallLog(run, complete).length(); // also flushes the file storage of a running build
+        Map<String, List<long[]>> ranges = new HashMap<>();
+        for (FlowNode node : nodes) {
+            ranges.put(node.getId(), new ArrayList<>());
+        }
+        try (BufferedReader r = Files.newBufferedReader(index.toPath(), StandardCharsets.UTF_8)) {
+            List<long[]> current = null;
+            long start = 0;
+            String line;
+            while ((line = r.readLine()) != null) {
+                int space = line.indexOf(' ');
+                long pos = Long.parseLong(space == -1 ? line : line.substring(0, space));
+                if (current != null && pos > start) {
+                    current.add(new long[] {start, Math.min(pos, length)});
+                }
+                current = space == -1 ? null : ranges.get(line.substring(space + 1));
+                start = pos;
+            }
+            if (current != null && length > start) {
+                current.add(new long[] {start, length});
+            }
+        } catch (NumberFormatException x) {
+            throw new IOException("malformed " + index, x);
+        }
+        try (Raw raw = storage instanceof FramedLogStorage ? ((FramedLogStorage) storage).raw() : new RawFile(new File(dir, "log"))) {
+            for (FlowNode node : nodes) {
+                NoteStripper plain = new NoteStripper(os);
+                for (long[] range : ranges.get(node.getId())) {
+                    raw.copy(range[0], range[1], plain);
+                }
+                plain.finish();
+            }
+        }
+    }
+
+    private static LogStorage unwrap(LogStorage storage) {
+        return storage instanceof LogQuota.Storage ? ((LogQuota.Storage) storage).delegate() : storage;
+    }
+
+    /** Raw bytes of the overall log, read by offset. */
+    interface Raw extends Closeable {
+        void copy(long from, long to, @NonNull OutputStream out) throws IOException;
+    }
+
+    /** The uncompressed {@code log} of the default file storage. */
+    private static final class RawFile implements Raw {
+
+        private final RandomAccessFile raf;
+        private final byte[] buf = new byte[8192];
+
+        RawFile(File log) throws IOException {
+            raf = new RandomAccessFile(log, "r");
+        }
+
+        @Override public void copy(long from, long to, @NonNull OutputStream out) throws IOException {
+            raf.seek(from);
+            long remaining = to - from;
+            while (remaining > 0) {
+                int n = raf.read(buf, 0, (int) Math.min(buf.length, remaining));
+                if (n == -1) {
+                    break;
+                }
+                out.write(buf, 0, n);
+                remaining -= n;
+            }
+        }
+
+        @Override public void close() throws IOException {
+            raf.close();
+        }
+
+    }
+
+}
@@ -0,0 +1,195 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.jenkinsci.plugins.workflow.job;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.console.ConsoleNote;
+import hudson.console.PlainTextConsoleOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import jenkins.util.SystemProperties;
+
+/**
+ * Removes {@link ConsoleNote}s from raw log output while copying it, without decoding text.
+ * Equivalent to {@link ConsoleNote#removeNotes} applied line by line, and so to {@link PlainTextConsoleOutputStream} for well-formed notes:
+ * a note runs from {@link ConsoleNote#PREAMBLE} to the next {@link ConsoleNote#POSTAMBLE} on the same line,
+ * and a preamble with no postamble before the end of its line is left alone.
+ * Plain bytes are passed through in bulk; only a possible note is held back until its end is seen,
+ * and one longer than {@link #MAX_NOTE_BYTES} is left alone too.
+ */
+final class NoteStripper extends OutputStream {
+
+    private static final byte[] PREAMBLE = ConsoleNote.PREAMBLE;
+    private static final byte[] POSTAMBLE = ConsoleNote.POSTAMBLE;
+    private static final byte ESC = 0x1B;
+
+    /** Longest note, counting its preamble and postamble, which is removed; anything longer is copied verbatim rather than held back. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static int MAX_NOTE_BYTES = SystemProperties.getInteger(NoteStripper.class.getName() + ".maxNoteBytes", 1024 * 1024);
+
+    private final OutputStream out;
+    /** Bytes of a possible note, not yet written; at most {@link #MAX_NOTE_BYTES}. */
+    private byte[] pending = new byte[256];
+    private int pendingLen;
+    /** Whether {@link #pending} holds a complete preamble. */
+    private boolean inNote;
+    /** Length of the postamble prefix at the end of {@link #pending}. */
+    private int matched;
+
+    NoteStripper(@NonNull OutputStream out) {
+        this.out = out;
+    }
+
+    @Override public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override public void write(@NonNull byte[] b, int off, int len) throws IOException {
+        int end = off + len;
+        int run = off; // start of plain bytes not yet written
+        for (int i = off; i < end; i++) {
+            byte c = b[i];
+            if (inNote) {
+                add(c);
+                if (c == POSTAMBLE[matched]) {
+                    if (++matched == POSTAMBLE.length) {
+                        pendingLen = 0; // drop the note
+                        inNote = false;
+                        matched = 0;
+                    }
+                } else if (c == '\n') {
+                    out.write(pending, 0, pendingLen); // unterminated, so not a note after all
+                    pendingLen = 0;
+                    inNote = false;
+                    matched = 0;
+                } else {
+                    matched = c == ESC ? 1 : 0;
+                }
+                if (inNote && pendingLen >= MAX_NOTE_BYTES) {
+                    out.write(pending, 0, pendingLen); // too long to hold back, so treated as plain text
+                    pendingLen = 0;
+                    inNote = false;
+                    matched = 0;
+                }
+                run = i + 1;
+            } else if (pendingLen > 0) {
+                if (c == PREAMBLE[pendingLen]) {
+                    add(c);
+                    inNote = pendingLen == PREAMBLE.length;
+                    run = i + 1;
+                } else {
+                    out.write(pending, 0, pendingLen);
+                    pendingLen = 0;
+                    if (c == ESC) {
+                        add(c);
+                        run = i + 1;
+                    } else {
+                        run = i;
+                    }
+                }
+            } else if (c == ESC) {
+                out.write(b, run, i - run);
+                add(c);
+                run = i + 1;
+            }
+        }
+        if (pendingLen == 0 && run < end) {
+            out.write(b, run, end - run);
+        }
+    }
+
+    private void add(byte c) {
+        if (pendingLen == pending.length) {
+            pending = Arrays.copyOf(pending, Math.max(pendingLen + 1, Math.min(pendingLen * 2, MAX_NOTE_BYTES)));
+        }
+        pending[pendingLen++] = c;
+    }
+
+    /** Writes out anything held back, as the output is known to end here. */
+    void finish() throws IOException {
+        out.write(pending, 0, pendingLen);
+        pendingLen = 0;
+        inNote = false;
+        matched = 0;
+    }
+
+    @Override public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Removes notes from complete lines held in a buffer, in place.
+     * @return the new length of the range
+     */
+    static int strip(@NonNull byte[] b, int off, int len) {
+        int end = off + len;
+        int w = off;
+        int r = off;
+        while (r < end) {
+            if (b[r] == ESC && startsWith(b, r, end, PREAMBLE)) {
+                int limit = Math.min(end, r + MAX_NOTE_BYTES);
+                int e = r + PREAMBLE.length;
+                while (e < limit && b[e] != '\n' && !(b[e] == ESC && startsWith(b, e, limit, POSTAMBLE))) {
+                    e++;
+                }
+                if (e < limit && b[e] == ESC) {
+                    r = e + POSTAMBLE.length;
+                    continue;
+                }
+                // no postamble on this line within the limit; copy what the stream would have given up on
+                System.arraycopy(b, r, b, w, e - r);
+                w += e - r;
+                r = e;
+                continue;
+            }
+            b[w++] = b[r++];
+        }
+        return w - off;
+    }
+
+    private static boolean startsWith(byte[] b, int at, int end, byte[] prefix) {
+        if (end - at < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (b[at + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
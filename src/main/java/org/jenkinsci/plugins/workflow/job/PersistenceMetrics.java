@@ -0,0 +1,279 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.ExtensionPoint;
+import hudson.model.RootAction;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jenkins.model.Jenkins;
+import net.sf.json.JSONObject;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
+
+/**
+ * Timers and counters for how builds are written to and read from disk.
+ * Served as JSON to administrators from {@code /pipeline-job-metrics}, and each operation is also emitted as a JFR event.
+ * Other subsystems keep their own counters and add them to the JSON as a {@link Source}.
+ */
+@Restricted(NoExternalUse.class)
+public final class PersistenceMetrics {
+
+    private PersistenceMetrics() {}
+
+    private static final long[] MILLIS_BOUNDS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000};
+    private static final long[] COUNT_BOUNDS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000};
+
+    static final Histogram SAVE_MILLIS = new Histogram(MILLIS_BOUNDS);
+    static final Histogram LOAD_MILLIS = new Histogram(MILLIS_BOUNDS);
+    static final Histogram EXECUTION_LOAD_MILLIS = new Histogram(MILLIS_BOUNDS);
+    static final Histogram SAVES_PER_BUILD = new Histogram(COUNT_BOUNDS);
+
+    private static final AtomicLong bytesWritten = new AtomicLong();
+    private static final AtomicLong atomicWrites = new AtomicLong();
+    private static final AtomicLong nonAtomicWrites = new AtomicLong();
+    private static final AtomicLong failedLoads = new AtomicLong();
+
+    /** Lock-free cumulative histogram with fixed upper bounds plus an overflow bucket. */
+    static final class Histogram {
+
+        private final long[] bounds;
+        private final AtomicLongArray counts;
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong sum = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        Histogram(long[] bounds) {
+            this.bounds = bounds;
+            counts = new AtomicLongArray(bounds.length + 1);
+        }
+
+        void record(long value) {
+            int i = 0;
+            while (i < bounds.length && value > bounds[i]) {
+                i++;
+            }
+            counts.incrementAndGet(i);
+            count.incrementAndGet();
+            sum.addAndGet(value);
+            max.accumulateAndGet(value, Math::max);
+        }
+
+        long getCount() {
+            return count.get();
+        }
+
+        long getSum() {
+            return sum.get();
+        }
+
+        @NonNull JSONObject toJSON() {
+            JSONObject buckets = new JSONObject();
+            for (int i = 0; i < bounds.length; i++) {
+                buckets.put("le_" + bounds[i], counts.get(i));
+            }
+            buckets.put("overflow", counts.get(bounds.length));
+            JSONObject json = new JSONObject();
+            json.put("count", count.get());
+            json.put("sum", sum.get());
+            json.put("max", max.get());
+            json.put("buckets", buckets);
+            return json;
+        }
+
+    }
+
+    /** Records one snapshot or journal write of a build. */
+    static void saved(@NonNull WorkflowRun run, long startNanos, long bytes, boolean atomic, boolean journaled) {
+        long nanos = System.nanoTime() - startNanos;
+        SAVE_MILLIS.record(TimeUnit.NANOSECONDS.toMillis(nanos));
+        bytesWritten.addAndGet(bytes);
+        (atomic ? atomicWrites : nonAtomicWrites).incrementAndGet();
+        SaveEvent event = new SaveEvent();
+        if (event.shouldCommit()) {
+            event.build = run.getExternalizableId();
+            event.bytes = bytes;
+            event.atomic = atomic;
+            event.journaled = journaled;
+            event.durationNanos = nanos;
+            event.commit();
+        }
+    }
+
+    /** Records {@link WorkflowRun#onLoad}. */
+    static void loaded(@NonNull WorkflowRun run, long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        LOAD_MILLIS.record(TimeUnit.NANOSECONDS.toMillis(nanos));
+        LoadEvent event = new LoadEvent();
+        if (event.shouldCommit()) {
+            event.build = run.getExternalizableId();
+            event.durationNanos = nanos;
+            event.commit();
+        }
+    }
+
+    /** Records the lazy load of a build’s execution in {@link WorkflowRun#getExecution}. */
+    static void executionLoaded(@NonNull WorkflowRun run, long startNanos, boolean failed) {
+        long nanos = System.nanoTime() - startNanos;
+        EXECUTION_LOAD_MILLIS.record(TimeUnit.NANOSECONDS.toMillis(nanos));
+        if (failed) {
+            failedLoads.incrementAndGet();
+        }
+        ExecutionLoadEvent event = new ExecutionLoadEvent();
+        if (event.shouldCommit()) {
+            event.build = run.getExternalizableId();
+            event.failed = failed;
+            event.durationNanos = nanos;
+            event.commit();
+        }
+    }
+
+    /** Records how many times a build was saved by the time it completed. */
+    static void completed(int saves) {
+        SAVES_PER_BUILD.record(saves);
+    }
+
+    public static long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    public static long getAtomicWrites() {
+        return atomicWrites.get();
+    }
+
+    public static long getNonAtomicWrites() {
+        return nonAtomicWrites.get();
+    }
+
+    /** Number of execution loads which failed, so that the execution was nulled out and the build failed. */
+    public static long getFailedLoads() {
+        return failedLoads.get();
+    }
+
+    /**
+     * Counters of one subsystem, kept by that subsystem and collected into {@link #toJSON}.
+     * Each source adds its values to one or more named sections, which several sources may share.
+     */
+    public interface Source extends ExtensionPoint {
+        void contribute(@NonNull JSONObject json);
+    }
+
+    /** The named section of {@code json}, added if missing. */
+    public static @NonNull JSONObject section(@NonNull JSONObject json, @NonNull String name) {
+        if (!json.has(name)) {
+            json.put(name, new JSONObject());
+        }
+        return json.getJSONObject(name);
+    }
+
+    static @NonNull JSONObject toJSON() {
+        JSONObject json = new JSONObject();
+        for (Source source : ExtensionList.lookup(Source.class)) {
+            source.contribute(json);
+        }
+        return json;
+    }
+
+    /** Timings of saves and loads themselves. */
+    @Extension(ordinal = 100) public static final class Metrics implements Source {
+        @Override public void contribute(@NonNull JSONObject json) {
+            JSONObject save = section(json, "save");
+            save.put("millis", SAVE_MILLIS.toJSON());
+            save.put("bytesWritten", bytesWritten.get());
+            save.put("atomicWrites", atomicWrites.get());
+            save.put("nonAtomicWrites", nonAtomicWrites.get());
+            save.put("perBuild", SAVES_PER_BUILD.toJSON());
+            JSONObject load = section(json, "load");
+            load.put("millis", LOAD_MILLIS.toJSON());
+            load.put("executionMillis", EXECUTION_LOAD_MILLIS.toJSON());
+            load.put("failed", failedLoads.get());
+        }
+    }
+
+    @Extension public static final class Endpoint implements RootAction {
+
+        @Override public String getIconFileName() {
+            return null;
+        }
+
+        @Override public String getDisplayName() {
+            return "Pipeline Job Metrics";
+        }
+
+        @Override public String getUrlName() {
+            return "pipeline-job-metrics";
+        }
+
+        public void doIndex(StaplerRequest req, StaplerResponse rsp) throws IOException {
+            Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+            rsp.setContentType("application/json;charset=UTF-8");
+            rsp.getWriter().print(PersistenceMetrics.toJSON());
+        }
+
+    }
+
+    @Name("org.jenkinsci.plugins.workflow.job.Save")
+    @Label("Pipeline Build Save")
+    @Category({"Jenkins", "Pipeline"})
+    @Description("Snapshot or journal write of a Pipeline build")
+    static final class SaveEvent extends Event {
+        @Label("Build") String build;
+        @Label("Bytes") @DataAmount long bytes;
+        @Label("Atomic") boolean atomic;
+        @Label("Journaled") boolean journaled;
+        @Label("Duration (ns)") long durationNanos;
+    }
+
+    @Name("org.jenkinsci.plugins.workflow.job.Load")
+    @Label("Pipeline Build Load")
+    @Category({"Jenkins", "Pipeline"})
+    static final class LoadEvent extends Event {
+        @Label("Build") String build;
+        @Label("Duration (ns)") long durationNanos;
+    }
+
+    @Name("org.jenkinsci.plugins.workflow.job.ExecutionLoad")
+    @Label("Pipeline Execution Load")
+    @Category({"Jenkins", "Pipeline"})
+    static final class ExecutionLoadEvent extends Event {
+        @Label("Build") String build;
+        @Label("Failed") boolean failed;
+        @Label("Duration (ns)") long durationNanos;
+    }
+
+}
@@ -0,0 +1,333 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.Extension;
+import hudson.model.Item;
+import hudson.model.Queue;
+import hudson.model.listeners.ItemListener;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.util.SystemProperties;
+import jenkins.util.Timer;
+import net.sf.json.JSONObject;
+import org.jenkinsci.plugins.workflow.job.properties.ResumeThrottleJobProperty;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Schedules {@link AfterRestartTask}s for builds resumed after a restart.
+ * Rather than each loaded build submitting its own task to the queue, builds are collected here
+ * and handed to the queue in batches, in order of {@link Priority}.
+ * Each batch is scheduled under {@link Queue#withLock}, so a single worker does this; it waits out any throttling itself.
+ * The rate at which builds become runnable may be limited globally and per job with {@link ResumeThrottleJobProperty}.
+ */
+@Restricted(NoExternalUse.class)
+public final class ResumeEngine {
+
+    private static final Logger LOGGER = Logger.getLogger(ResumeEngine.class.getName());
+
+    /** Order in which pending builds are resumed. */
+    public enum Priority {
+        /** Builds which started earliest go first. */
+        OLDEST(Comparator.comparingLong(WorkflowRun::getStartTimeInMillis)),
+        /** Builds which started most recently go first. */
+        NEWEST(Comparator.comparingLong(WorkflowRun::getStartTimeInMillis).reversed());
+
+        final Comparator<WorkflowRun> comparator;
+
+        Priority(Comparator<WorkflowRun> comparator) {
+            this.comparator = comparator;
+        }
+
+        static Priority parse(String name) {
+            try {
+                return valueOf(name.toUpperCase(Locale.ENGLISH));
+            } catch (IllegalArgumentException x) {
+                LOGGER.log(Level.WARNING, "unknown resume priority {0}, using {1}", new Object[] {name, OLDEST});
+                return OLDEST;
+            }
+        }
+    }
+
+    /** Maximum number of builds handed to the queue under one lock. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static int BATCH_SIZE = SystemProperties.getInteger(ResumeEngine.class.getName() + ".batchSize", 50);
+
+    /** How long a worker waits before taking its first batch, so that builds loaded together are ordered by priority. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static long GATHER_MILLIS = SystemProperties.getLong(ResumeEngine.class.getName() + ".gatherMillis", 200L);
+
+    /** Global limit on how many builds per second are made runnable; zero or negative for no limit. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static double RESUMES_PER_SECOND = parseRate(SystemProperties.getString(ResumeEngine.class.getName() + ".resumesPerSecond"));
+
+    private static final Priority PRIORITY = Priority.parse(SystemProperties.getString(ResumeEngine.class.getName() + ".priority", Priority.OLDEST.name()));
+
+    private static final ResumeEngine INSTANCE = new ResumeEngine(PRIORITY);
+
+    static @NonNull ResumeEngine get() {
+        return INSTANCE;
+    }
+
+    private static final class Entry {
+        final WorkflowRun run;
+        final long sequence;
+        Entry(WorkflowRun run, long sequence) {
+            this.run = run;
+            this.sequence = sequence;
+        }
+    }
+
+    private final PriorityBlockingQueue<Entry> pending;
+    /** Whether a worker is scheduled or running. */
+    private final AtomicBoolean working = new AtomicBoolean();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong resumed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private volatile TokenBucket globalBucket;
+    /** Per-job buckets by full name, dropped when the job is deleted or renamed. */
+    private final Map<String, TokenBucket> jobBuckets = new ConcurrentHashMap<>();
+
+    ResumeEngine(Priority priority) {
+        Comparator<Entry> byRun = Comparator.comparing(e -> e.run, priority.comparator);
+        pending = new PriorityBlockingQueue<>(11, byRun.thenComparingLong(e -> e.sequence));
+    }
+
+    /** Queues a loaded, still running build to be resumed. */
+    void submit(@NonNull WorkflowRun run) {
+        submitted.incrementAndGet();
+        pending.add(new Entry(run, sequence.getAndIncrement()));
+        startWorker();
+    }
+
+    private void startWorker() {
+        if (!pending.isEmpty() && working.compareAndSet(false, true)) {
+            Timer.get().schedule(this::work, GATHER_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void work() {
+        long retryNanos = 0;
+        try {
+            retryNanos = drain();
+        } catch (RuntimeException x) {
+            LOGGER.log(Level.WARNING, "failed to resume builds", x);
+        }
+        if (retryNanos > 0) {
+            Timer.get().schedule(this::work, retryNanos, TimeUnit.NANOSECONDS); // still working
+            return;
+        }
+        working.set(false);
+        if (pending.isEmpty()) {
+            if (inFlight.get() == 0) {
+                LOGGER.log(Level.INFO, "Resumed {0} builds after restart ({1} failed, {2} times throttled)", new Object[] {resumed, failed, throttled});
+            }
+        } else {
+            startWorker(); // something was submitted after we finished draining
+        }
+    }
+
+    /**
+     * Schedules batches until nothing is pending or admission control refuses a whole batch.
+     * @return zero if nothing is pending, else how long to wait before trying again
+     */
+    private long drain() {
+        List<Entry> batch = new ArrayList<>();
+        while (true) {
+            synchronized (this) { // so that inFlight is updated atomically with the drain, for getPending
+                if (pending.drainTo(batch, Math.max(1, BATCH_SIZE)) == 0) {
+                    return 0;
+                }
+                inFlight.addAndGet(batch.size());
+            }
+            List<Entry> admitted = new ArrayList<>(batch.size());
+            List<Entry> deferred = new ArrayList<>();
+            long retryNanos = Long.MAX_VALUE;
+            try {
+                for (Entry entry : batch) {
+                    long wait = admit(entry.run);
+                    if (wait == 0) {
+                        admitted.add(entry);
+                    } else {
+                        deferred.add(entry);
+                        retryNanos = Math.min(retryNanos, wait);
+                    }
+                }
+                schedule(admitted);
+                if (!deferred.isEmpty()) {
+                    throttled.addAndGet(deferred.size());
+                    pending.addAll(deferred);
+                }
+            } finally {
+                inFlight.addAndGet(-batch.size());
+                batch.clear();
+            }
+            if (admitted.isEmpty()) {
+                return Math.max(retryNanos, TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        }
+    }
+
+    /**
+     * Applies the global and per-job {@link TokenBucket}s.
+     * @return zero if the build may be resumed now, else how long to wait
+     */
+    private long admit(WorkflowRun run) {
+        TokenBucket perJob = null;
+        ResumeThrottleJobProperty property = run.getParent().getProperty(ResumeThrottleJobProperty.class);
+        if (property != null && property.getResumesPerSecond() > 0) {
+            double rate = property.getResumesPerSecond();
+            perJob = jobBuckets.compute(run.getParent().getFullName(), (job, bucket) -> bucket != null && bucket.getPermitsPerSecond() == rate ? bucket : new TokenBucket(rate));
+            if (!perJob.tryAcquire()) {
+                return perJob.nanosUntilAvailable();
+            }
+        }
+        TokenBucket global = globalBucket();
+        if (global != null && !global.tryAcquire()) {
+            if (perJob != null) {
+                perJob.release();
+            }
+            return global.nanosUntilAvailable();
+        }
+        return 0;
+    }
+
+    private TokenBucket globalBucket() {
+        double rate = RESUMES_PER_SECOND;
+        if (!(rate > 0)) {
+            return null;
+        }
+        TokenBucket bucket = globalBucket;
+        if (bucket == null || bucket.getPermitsPerSecond() != rate) {
+            bucket = new TokenBucket(rate);
+            globalBucket = bucket;
+        }
+        return bucket;
+    }
+
+    private static double parseRate(String value) {
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException x) {
+            LOGGER.log(Level.WARNING, "invalid resume rate {0}, not limiting", value);
+            return 0;
+        }
+    }
+
+    private void schedule(List<Entry> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Queue queue = Queue.getInstance();
+        Queue.withLock(() -> {
+            for (Entry entry : batch) {
+                try {
+                    if (queue.schedule2(new AfterRestartTask(entry.run), 0).isRefused()) {
+                        failed.incrementAndGet();
+                        LOGGER.log(Level.WARNING, "queue refused to resume {0}", entry.run);
+                    } else {
+                        resumed.incrementAndGet();
+                    }
+                } catch (RuntimeException x) {
+                    failed.incrementAndGet();
+                    LOGGER.log(Level.WARNING, "failed to resume " + entry.run, x);
+                }
+            }
+        });
+    }
+
+    /** Number of builds submitted for resumption since startup. */
+    public long getSubmitted() {
+        return submitted.get();
+    }
+
+    /** Number of builds handed to the queue. */
+    public long getResumed() {
+        return resumed.get();
+    }
+
+    /** Number of builds which could not be handed to the queue. */
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /** Number of times a build was held back by admission control. */
+    public long getThrottled() {
+        return throttled.get();
+    }
+
+    /** Number of builds still waiting to be handed to the queue. */
+    public synchronized int getPending() {
+        return pending.size() + inFlight.get();
+    }
+
+    /** Drops the buckets of a job, or of every job in a folder, no longer present under that name. */
+    void forget(@NonNull String fullName) {
+        String prefix = fullName + '/';
+        jobBuckets.keySet().removeIf(job -> job.equals(fullName) || job.startsWith(prefix));
+    }
+
+    @Extension public static final class ItemListenerImpl extends ItemListener {
+        @Override public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            get().forget(oldFullName);
+        }
+        @Override public void onDeleted(Item item) {
+            get().forget(item.getFullName());
+        }
+    }
+
+    @Extension public static final class Metrics implements PersistenceMetrics.Source {
+        @Override public void contribute(@NonNull JSONObject json) {
+            ResumeEngine engine = get();
+            JSONObject resume = PersistenceMetrics.section(json, "resume");
+            resume.put("submitted", engine.getSubmitted());
+            resume.put("resumed", engine.getResumed());
+            resume.put("failed", engine.getFailed());
+            resume.put("throttled", engine.getThrottled());
+            resume.put("pending", engine.getPending());
+        }
+    }
+
+}
@@ -0,0 +1,248 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job;
+
+import com.thoughtworks.xstream.XStreamException;
+import com.thoughtworks.xstream.io.binary.BinaryStreamReader;
+import com.thoughtworks.xstream.io.binary.BinaryStreamWriter;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.XmlFile;
+import hudson.model.Run;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import jenkins.util.SystemProperties;
+import org.jenkinsci.plugins.workflow.support.PipelineIOUtils;
+
+/**
+ * How a full snapshot of a {@link WorkflowRun} is written to and read from its build directory.
+ * {@link #XML} is the classic {@code build.xml}.
+ * {@link #BINARY} feeds the same XStream object graph (run fields, {@link WorkflowRun.SCMCheckout}s, the {@code Owner} inside the execution, actions)
+ * through XStream’s binary hierarchical stream format, which skips XML escaping and repeated element names.
+ * <p>{@code build.xml} must always exist, since that is how {@link hudson.model.RunMap} discovers builds,
+ * and it stays the long-term format: it is written for the first save of a build and again once the build completes,
+ * when {@code build.bin} is deleted. In between, if {@link #FORMAT} is {@code binary}, snapshots go to {@code build.bin},
+ * which starts with the {@link WorkflowRun#snapshotGeneration()} it was written at;
+ * {@link #forLoad} prefers it only while that is newer than the generation recorded in {@code build.xml},
+ * so a crash between writing the final {@code build.xml} and deleting {@code build.bin} is harmless.
+ * While {@code build.bin} is in use, {@code build.xml} is left as of the first save and is stale:
+ * anything outside Jenkins reading {@code build.xml} of a running build (backup or reporting scripts, for example)
+ * sees the state from when the build started until the build completes, so such tools should keep the default format.
+ * Builds running when the format is switched on are thus migrated on their next save, and switching it off again is always safe.
+ */
+abstract class RunCodec {
+
+    /** Either {@code xml} (default) or {@code binary}; with {@code binary}, {@code build.xml} of a running build is stale until it completes. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static String FORMAT = SystemProperties.getString(RunCodec.class.getName() + ".format", "xml");
+
+    static final RunCodec XML = new XmlCodec();
+    static final RunCodec BINARY = new BinaryCodec();
+
+    private static final Logger LOGGER = Logger.getLogger(RunCodec.class.getName());
+
+    private static final int BINARY_MAGIC = 0x5752554e; // WRUN
+
+    /** Name of the snapshot file within the build directory. */
+    abstract @NonNull String getFileName();
+
+    /** Marshals the run. */
+    abstract void write(@NonNull WorkflowRun run, @NonNull OutputStream out) throws IOException;
+
+    /** Unmarshals into an existing run, as {@link Run#reload} does. */
+    abstract void read(@NonNull WorkflowRun run, @NonNull InputStream in) throws IOException;
+
+    final @NonNull File file(@NonNull File buildDir) {
+        return new File(buildDir, getFileName());
+    }
+
+    /** Writes a snapshot, atomically and durably if requested. */
+    void write(@NonNull WorkflowRun run, @NonNull File file, boolean atomic) throws IOException {
+        File tmp = atomic ? new File(file.getPath() + ".tmp") : file;
+        try (FileOutputStream fos = new FileOutputStream(tmp)) {
+            OutputStream out = new BufferedOutputStream(fos);
+            write(run, out);
+            out.flush();
+            if (atomic) {
+                fos.getChannel().force(true);
+            }
+        }
+        if (atomic) {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    void read(@NonNull WorkflowRun run, @NonNull File file) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file.toPath()))) {
+            read(run, in);
+        }
+    }
+
+    /** The codec for the next snapshot of a build. */
+    static @NonNull RunCodec forSave(@NonNull WorkflowRun run) {
+        if ("binary".equals(FORMAT) && !Boolean.TRUE.equals(run.completed) && XML.file(run.getRootDir()).isFile()) {
+            return BINARY;
+        }
+        return XML;
+    }
+
+    /** The codec which wrote the latest snapshot in a build directory. */
+    static @NonNull RunCodec forLoad(@NonNull File buildDir) {
+        File bin = BINARY.file(buildDir);
+        if (!bin.isFile()) {
+            return XML;
+        }
+        try {
+            return binaryGeneration(bin) > xmlGeneration(XML.file(buildDir)) ? BINARY : XML;
+        } catch (IOException | XMLStreamException x) {
+            LOGGER.log(Level.WARNING, "could not compare snapshots in " + buildDir + ", loading build.xml", x);
+            return XML;
+        }
+    }
+
+    private static long binaryGeneration(File bin) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(bin.toPath()))) {
+            if (in.readInt() != BINARY_MAGIC) {
+                throw new IOException(bin + " is not a binary snapshot");
+            }
+            return in.readLong();
+        }
+    }
+
+    /** Finds the top-level {@code snapshotGeneration} element without unmarshaling the run. */
+    private static long xmlGeneration(File xml) throws IOException, XMLStreamException {
+        if (!xml.isFile()) {
+            return -1;
+        }
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        try (InputStream is = new BufferedInputStream(Files.newInputStream(xml.toPath()))) {
+            XMLStreamReader reader = factory.createXMLStreamReader(is);
+            try {
+                int depth = 0;
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        depth++;
+                        if (depth == 2 && reader.getLocalName().equals("snapshotGeneration")) {
+                            return Long.parseLong(reader.getElementText().trim());
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        depth--;
+                    }
+                }
+                return 0; // written before generations were recorded
+            } catch (NumberFormatException x) {
+                throw new IOException(x);
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+    private static final class XmlCodec extends RunCodec {
+
+        @Override String getFileName() {
+            return "build.xml";
+        }
+
+        @Override void write(WorkflowRun run, OutputStream out) throws IOException {
+            try {
+                Run.XSTREAM2.toXMLUTF8(run, out);
+            } catch (XStreamException x) {
+                throw new IOException("Unable to write build", x);
+            }
+        }
+
+        @Override void read(WorkflowRun run, InputStream in) throws IOException {
+            try {
+                Run.XSTREAM2.fromXML(in, run);
+            } catch (XStreamException | LinkageError x) {
+                throw new IOException("Unable to read build", x);
+            }
+        }
+
+        @Override void write(WorkflowRun run, File file, boolean atomic) throws IOException {
+            PipelineIOUtils.writeByXStream(run, file, Run.XSTREAM2, atomic);
+        }
+
+        @Override void read(WorkflowRun run, File file) throws IOException {
+            new XmlFile(Run.XSTREAM, file).unmarshal(run);
+        }
+
+    }
+
+    private static final class BinaryCodec extends RunCodec {
+
+        @Override String getFileName() {
+            return "build.bin";
+        }
+
+        @Override void write(WorkflowRun run, OutputStream out) throws IOException {
+            DataOutputStream header = new DataOutputStream(out);
+            header.writeInt(BINARY_MAGIC);
+            header.writeLong(run.snapshotGeneration());
+            header.flush();
+            BinaryStreamWriter writer = new BinaryStreamWriter(out);
+            try {
+                Run.XSTREAM2.marshal(run, writer);
+            } catch (XStreamException x) {
+                throw new IOException("Unable to write build", x);
+            }
+            writer.flush();
+        }
+
+        @Override void read(WorkflowRun run, InputStream in) throws IOException {
+            DataInputStream header = new DataInputStream(in);
+            if (header.readInt() != BINARY_MAGIC) {
+                throw new IOException("not a binary snapshot");
+            }
+            header.readLong(); // also unmarshaled as a field
+            try {
+                Run.XSTREAM2.unmarshal(new BinaryStreamReader(in), run);
+            } catch (XStreamException | LinkageError x) {
+                throw new IOException("Unable to read build", x);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.init.Terminator;
+import hudson.model.Item;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.RunListener;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import net.sf.json.JSONObject;
+import org.jenkinsci.plugins.workflow.flow.FlowExecutionOwner;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Process-wide index from job full name and build ID to the loaded {@link WorkflowRun}, if any,
+ * so that a deserialized {@link FlowExecutionOwner} can usually find its build with one hash lookup
+ * rather than going through {@link jenkins.model.Jenkins#getItemByFullName} and {@link hudson.model.RunMap#getById}.
+ * Builds are held weakly, so the index never keeps a build in memory which the job itself has let go of,
+ * and entries of collected builds are expunged through a {@link ReferenceQueue} on the next {@link #put}.
+ */
+@Restricted(NoExternalUse.class)
+public final class RunIndex {
+
+    private static final ConcurrentMap<String, Ref> RUNS = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<WorkflowRun> COLLECTED = new ReferenceQueue<>();
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+
+    private RunIndex() {}
+
+    private static final class Ref extends WeakReference<WorkflowRun> {
+        final String key;
+        Ref(String key, WorkflowRun run) {
+            super(run, COLLECTED);
+            this.key = key;
+        }
+    }
+
+    private static String key(String job, String id) {
+        return job + '/' + id;
+    }
+
+    /** Records a build which has just been created or loaded, replacing any older copy. */
+    static void put(@NonNull WorkflowRun run) {
+        expunge();
+        String key = key(run.getParent().getFullName(), run.getId());
+        RUNS.put(key, new Ref(key, run));
+    }
+
+    /** Drops the entries of builds which have been collected. */
+    private static void expunge() {
+        for (Reference<? extends WorkflowRun> ref = COLLECTED.poll(); ref != null; ref = COLLECTED.poll()) {
+            RUNS.remove(((Ref) ref).key, ref);
+        }
+    }
+
+    static @CheckForNull WorkflowRun get(@NonNull String job, @NonNull String id) {
+        String key = key(job, id);
+        Ref ref = RUNS.get(key);
+        WorkflowRun run = ref != null ? ref.get() : null;
+        if (run == null) {
+            if (ref != null) {
+                RUNS.remove(key, ref);
+            }
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return run;
+    }
+
+    private static void remove(@NonNull WorkflowRun run) {
+        String key = key(run.getParent().getFullName(), run.getId());
+        Ref ref = RUNS.get(key);
+        if (ref != null && ref.get() == run) {
+            RUNS.remove(key, ref);
+        }
+    }
+
+    /** Forgets all builds of a job, or of all jobs inside a folder. */
+    static void removeAll(@NonNull String fullName) {
+        String prefix = fullName + '/';
+        RUNS.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    @Terminator public static void clear() {
+        RUNS.clear();
+    }
+
+    /** Number of owner lookups answered from the index. */
+    public static long getHits() {
+        return hits.get();
+    }
+
+    /** Number of owner lookups which had to fall back to loading the job and build. */
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    /** Number of builds currently indexed. */
+    public static int size() {
+        expunge();
+        return RUNS.size();
+    }
+
+    @Extension public static final class RunListenerImpl extends RunListener<WorkflowRun> {
+        @Override public void onDeleted(WorkflowRun run) {
+            remove(run);
+        }
+    }
+
+    @Extension public static final class ItemListenerImpl extends ItemListener {
+        @Override public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            removeAll(oldFullName);
+        }
+        @Override public void onDeleted(Item item) {
+            removeAll(item.getFullName());
+        }
+    }
+
+    @Extension public static final class Metrics implements PersistenceMetrics.Source {
+        @Override public void contribute(@NonNull JSONObject json) {
+            JSONObject owners = PersistenceMetrics.section(json, "owners");
+            owners.put("indexHits", getHits());
+            owners.put("indexMisses", getMisses());
+            owners.put("indexSize", size());
+        }
+    }
+
+}
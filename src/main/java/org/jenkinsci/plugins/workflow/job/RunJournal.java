@@ -0,0 +1,547 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job;
+
+import com.thoughtworks.xstream.io.xml.DomReader;
+import com.thoughtworks.xstream.io.xml.DomWriter;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.Extension;
+import hudson.model.Action;
+import hudson.model.Result;
+import hudson.model.Run;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StreamCorruptedException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import jenkins.util.SystemProperties;
+import jenkins.util.xml.XMLUtils;
+import net.sf.json.JSONObject;
+import org.jenkinsci.plugins.workflow.flow.FlowExecution;
+import org.jenkinsci.plugins.workflow.graph.FlowNode;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+
+/**
+ * Optional append-only journal kept beside {@code build.xml} while a build is running.
+ * Rather than rewriting the whole run, a save appends only what changed since the last full snapshot:
+ * result, completion flag, duration, newly added SCM checkouts and actions,
+ * and those top-level elements of the serialized {@link FlowExecution} (such as its heads or next node ID) which differ from the last save.
+ * The execution is only serialized to find those differences when its heads have changed since the last save,
+ * which is when a Pipeline execution has anything new to record; other changes to it are picked up by the next save which does serialize it.
+ * Anything the journal cannot express (for example a removed action or a new display name) forces a full snapshot,
+ * as does completion of the build; a snapshot deletes the journal.
+ * The journal starts with the {@link WorkflowRun#snapshotGeneration()} of the snapshot it extends,
+ * so one left behind by a crash between writing a snapshot and deleting the journal is recognized as stale.
+ * {@link WorkflowRun#onLoad} replays a leftover journal and compacts it right away.
+ */
+final class RunJournal {
+
+    private static final Logger LOGGER = Logger.getLogger(RunJournal.class.getName());
+
+    static final String FILE_NAME = "build-journal.bin";
+
+    /** Whether running builds should journal their saves. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static boolean ENABLED = SystemProperties.getBoolean(RunJournal.class.getName() + ".enabled");
+
+    /** Journal size beyond which the next save writes a full snapshot instead. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static long MAX_BYTES = SystemProperties.getLong(RunJournal.class.getName() + ".maxBytes", 1024L * 1024);
+
+    private static final int MAGIC = 0x524a4e4c; // RJNL
+
+    private static final byte RESULT = 1;
+    private static final byte COMPLETED = 2;
+    private static final byte DURATION = 3;
+    private static final byte CHECKOUT = 4;
+    private static final byte ACTION = 5;
+    private static final byte EXECUTION = 6;
+    private static final byte EXECUTION_FIELDS = 7;
+
+    private static final AtomicLong appendedBytes = new AtomicLong();
+    private static final AtomicLong appends = new AtomicLong();
+    private static final AtomicLong snapshots = new AtomicLong();
+
+    /** Receives replayed records. */
+    interface Target {
+        void result(@NonNull Result result);
+        void completed(boolean completed);
+        void duration(long duration);
+        void checkout(@NonNull WorkflowRun.SCMCheckout checkout);
+        void action(@NonNull Action action);
+        void execution(@NonNull FlowExecution execution);
+        /** The execution loaded from the snapshot, which {@link #EXECUTION_FIELDS} records patch. */
+        @CheckForNull FlowExecution currentExecution();
+    }
+
+    private final File file;
+
+    /** State as of the last full snapshot plus everything appended since, or null if unknown. */
+    private @CheckForNull Baseline baseline;
+
+    private static final class Baseline {
+        Result result;
+        Boolean completed;
+        long duration;
+        int checkouts;
+        List<Action> actions;
+        String fingerprint;
+        Element execution;
+        /** {@link #heads} of the execution when {@link #execution} was serialized. */
+        String executionHeads;
+    }
+
+    RunJournal(File rootDir) {
+        file = new File(rootDir, FILE_NAME);
+    }
+
+    /**
+     * Tries to record the current state of a build as an append.
+     * Must be called while holding the lock on {@code run}.
+     * @return false if a full snapshot must be written instead
+     */
+    boolean append(@NonNull WorkflowRun run, boolean atomic) {
+        Baseline b = baseline;
+        if (b == null || Boolean.TRUE.equals(run.completed) || !fingerprint(run).equals(b.fingerprint) || file.length() > MAX_BYTES) {
+            return false;
+        }
+        List<WorkflowRun.SCMCheckout> checkouts = run.checkouts(null);
+        @SuppressWarnings("deprecation")
+        List<Action> actions = run.getActions();
+        if (checkouts.size() < b.checkouts || !isExtensionOf(actions, b.actions)) {
+            return false;
+        }
+        FlowExecution execution = run.execution;
+        if (execution == null && b.execution != null) {
+            return false;
+        }
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        Element executionDom = null;
+        String executionHeads = null;
+        boolean header = file.length() == 0;
+        try (DataOutputStream out = new DataOutputStream(buf)) {
+            if (header) {
+                out.writeInt(MAGIC);
+                out.writeLong(run.snapshotGeneration());
+            }
+            Result result = run.getResult();
+            if (result != null && result != b.result) {
+                out.writeByte(RESULT);
+                writeString(out, result.toString());
+            }
+            if (!Objects.equals(run.completed, b.completed) && run.completed != null) {
+                out.writeByte(COMPLETED);
+                out.writeBoolean(run.completed);
+            }
+            if (run.getDuration() != b.duration) {
+                out.writeByte(DURATION);
+                out.writeLong(run.getDuration());
+            }
+            for (WorkflowRun.SCMCheckout checkout : checkouts.subList(b.checkouts, checkouts.size())) {
+                out.writeByte(CHECKOUT);
+                writeString(out, Run.XSTREAM2.toXML(checkout));
+            }
+            for (Action action : actions.subList(b.actions.size(), actions.size())) {
+                out.writeByte(ACTION);
+                writeString(out, Run.XSTREAM2.toXML(action));
+            }
+            if (execution != null) {
+                executionHeads = heads(execution);
+                if (b.execution != null && executionHeads.equals(b.executionHeads)) {
+                    executionDom = b.execution; // nothing new run since the last save, so not worth serializing
+                } else {
+                    executionDom = toDom(execution);
+                    writeExecution(out, executionDom, b.execution);
+                }
+            }
+        } catch (IOException | RuntimeException x) {
+            LOGGER.log(Level.FINE, "could not journal " + run + ", falling back to a snapshot", x);
+            return false;
+        }
+        if (buf.size() > (header ? Integer.BYTES + Long.BYTES : 0)) {
+            try (FileOutputStream fos = new FileOutputStream(file, true)) {
+                buf.writeTo(fos);
+                if (atomic) {
+                    fos.getChannel().force(true);
+                }
+            } catch (IOException x) {
+                LOGGER.log(Level.WARNING, "could not append to " + file + ", falling back to a snapshot", x);
+                return false;
+            }
+            appendedBytes.addAndGet(buf.size());
+            appends.incrementAndGet();
+        }
+        b.result = run.getResult();
+        b.completed = run.completed;
+        b.duration = run.getDuration();
+        b.checkouts = checkouts.size();
+        b.actions = new ArrayList<>(actions);
+        b.execution = executionDom;
+        b.executionHeads = executionHeads;
+        return true;
+    }
+
+    /**
+     * Records that a full snapshot of {@code run} was just written, making any journal obsolete.
+     * Must be called while holding the lock on {@code run}.
+     */
+    void snapshotWritten(@NonNull WorkflowRun run) {
+        snapshots.incrementAndGet();
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException x) {
+            LOGGER.log(Level.WARNING, "could not delete " + file, x);
+            baseline = null;
+            return;
+        }
+        if (Boolean.TRUE.equals(run.completed)) {
+            baseline = null; // no further journaling once complete
+            return;
+        }
+        Baseline b = new Baseline();
+        b.result = run.getResult();
+        b.completed = run.completed;
+        b.duration = run.getDuration();
+        b.checkouts = run.checkouts(null).size();
+        @SuppressWarnings("deprecation")
+        List<Action> actions = run.getActions();
+        b.actions = new ArrayList<>(actions);
+        b.fingerprint = fingerprint(run);
+        FlowExecution execution = run.execution;
+        try {
+            b.executionHeads = execution != null ? heads(execution) : null;
+            b.execution = execution != null ? toDom(execution) : null;
+        } catch (IOException | RuntimeException x) {
+            LOGGER.log(Level.FINE, "could not serialize execution of " + run, x);
+            return; // leave baseline unset, so we keep writing snapshots
+        }
+        baseline = b;
+    }
+
+    /**
+     * Applies any journal left beside {@code build.xml}, for example after a crash.
+     * @param generation the {@link WorkflowRun#snapshotGeneration()} of the snapshot just loaded
+     * Records are applied only once the journal has been read; one with an impossible length means the file is corrupt,
+     * and it is then ignored altogether, like a stale journal.
+     * @return true if a journal was found, in which case the caller should write a full snapshot and {@link #discard} it
+     */
+    boolean replay(@NonNull Target target, long generation) {
+        if (!file.isFile()) {
+            return false;
+        }
+        long limit = file.length();
+        List<Consumer<Target>> records = new ArrayList<>();
+        Element execution = null;
+        try (InputStream is = Files.newInputStream(file.toPath()); DataInputStream in = new DataInputStream(new BufferedInputStream(is))) {
+            try {
+                if (in.readInt() != MAGIC || in.readLong() != generation) {
+                    // Crashed after writing a snapshot but before deleting the journal, which is therefore stale.
+                    LOGGER.log(Level.FINE, "ignoring stale {0}", file);
+                    return true;
+                }
+            } catch (EOFException x) {
+                LOGGER.log(Level.FINE, "ignoring empty {0}", file);
+                return true;
+            }
+            while (true) {
+                byte type;
+                try {
+                    type = in.readByte();
+                } catch (EOFException x) {
+                    break;
+                }
+                switch (type) {
+                    case RESULT: {
+                        Result result = Result.fromString(readString(in, limit));
+                        records.add(t -> t.result(result));
+                        break;
+                    }
+                    case COMPLETED: {
+                        boolean completed = in.readBoolean();
+                        records.add(t -> t.completed(completed));
+                        break;
+                    }
+                    case DURATION: {
+                        long duration = in.readLong();
+                        records.add(t -> t.duration(duration));
+                        break;
+                    }
+                    case CHECKOUT: {
+                        WorkflowRun.SCMCheckout checkout = (WorkflowRun.SCMCheckout) Run.XSTREAM2.fromXML(readString(in, limit));
+                        records.add(t -> t.checkout(checkout));
+                        break;
+                    }
+                    case ACTION: {
+                        Action action = (Action) Run.XSTREAM2.fromXML(readString(in, limit));
+                        records.add(t -> t.action(action));
+                        break;
+                    }
+                    case EXECUTION:
+                        execution = parse(readString(in, limit));
+                        break;
+                    case EXECUTION_FIELDS:
+                        if (execution == null) {
+                            FlowExecution current = target.currentExecution();
+                            if (current == null) {
+                                throw new IOException("no execution to patch");
+                            }
+                            execution = toDom(current);
+                        }
+                        execution = patch(execution, in, limit);
+                        break;
+                    default:
+                        throw new IOException("unknown record type " + type);
+                }
+            }
+        } catch (StreamCorruptedException x) {
+            LOGGER.log(Level.WARNING, "ignoring corrupt " + file, x);
+            baseline = null;
+            return true;
+        } catch (EOFException x) {
+            LOGGER.log(Level.WARNING, "ignoring truncated last record in " + file, x); // crash in the middle of an append
+        } catch (IOException | RuntimeException x) {
+            LOGGER.log(Level.WARNING, "failed to replay " + file + " after " + records.size() + " records", x);
+        }
+        for (Consumer<Target> record : records) {
+            record.accept(target);
+        }
+        if (execution != null) {
+            try {
+                target.execution((FlowExecution) Run.XSTREAM2.unmarshal(new DomReader(execution)));
+            } catch (RuntimeException x) {
+                LOGGER.log(Level.WARNING, "failed to replay execution from " + file, x);
+            }
+        }
+        LOGGER.log(Level.FINE, "replayed {0} records from {1}", new Object[] {records.size(), file});
+        baseline = null;
+        return true;
+    }
+
+    /** Current size of the journal file, zero if there is none. */
+    long length() {
+        return file.length();
+    }
+
+    /** Deletes the journal after its contents have been written out in a snapshot. */
+    void discard() throws IOException {
+        Files.deleteIfExists(file.toPath());
+        baseline = null;
+    }
+
+    private static String fingerprint(WorkflowRun run) {
+        return run.getDisplayName() + '\n' + run.getDescription() + '\n' + run.isKeepLog() + '\n' + run.getArtifactManager().getClass().getName();
+    }
+
+    /**
+     * Appends the top-level elements of a serialized execution which differ from the baseline:
+     * the list of element keys in order, each followed by its new XML if changed.
+     * Falls back to the whole execution if the root element itself differs or there is no baseline.
+     */
+    private static void writeExecution(DataOutputStream out, Element current, @CheckForNull Element previous) throws IOException {
+        if (previous == null || !current.cloneNode(false).isEqualNode(previous.cloneNode(false))) {
+            out.writeByte(EXECUTION);
+            writeString(out, toXml(current));
+            return;
+        }
+        Map<String, Element> before = children(previous);
+        Map<String, Element> after = children(current);
+        boolean changed = !new ArrayList<>(before.keySet()).equals(new ArrayList<>(after.keySet()));
+        for (Map.Entry<String, Element> entry : after.entrySet()) {
+            changed |= !entry.getValue().isEqualNode(before.get(entry.getKey()));
+        }
+        if (!changed) {
+            return;
+        }
+        out.writeByte(EXECUTION_FIELDS);
+        out.writeInt(after.size());
+        for (Map.Entry<String, Element> entry : after.entrySet()) {
+            writeString(out, entry.getKey());
+            boolean same = entry.getValue().isEqualNode(before.get(entry.getKey()));
+            out.writeBoolean(!same);
+            if (!same) {
+                writeString(out, toXml(entry.getValue()));
+            }
+        }
+    }
+
+    /** Reads an {@link #EXECUTION_FIELDS} record, returning a copy of {@code previous} with the journaled elements. */
+    private static Element patch(Element previous, DataInputStream in, long limit) throws IOException {
+        Map<String, Element> before = children(previous);
+        Element next = (Element) previous.cloneNode(false);
+        int count = in.readInt();
+        if (count < 0 || count > limit) {
+            throw new StreamCorruptedException("bad element count " + count);
+        }
+        for (int i = 0; i < count; i++) {
+            String key = readString(in, limit);
+            Node child = in.readBoolean() ? next.getOwnerDocument().importNode(parse(readString(in, limit)), true) : before.get(key);
+            if (child == null) {
+                throw new IOException("no " + key + " to keep");
+            }
+            next.appendChild(child);
+        }
+        return next;
+    }
+
+    /** Child elements keyed by name plus index among siblings of that name, since converters may repeat names (such as {@code head}). */
+    private static Map<String, Element> children(Element parent) {
+        Map<String, Element> children = new LinkedHashMap<>();
+        Map<String, Integer> seen = new HashMap<>();
+        for (Node n = parent.getFirstChild(); n != null; n = n.getNextSibling()) {
+            if (n instanceof Element) {
+                String name = n.getNodeName();
+                children.put(name + '#' + seen.merge(name, 1, Integer::sum), (Element) n);
+            }
+        }
+        return children;
+    }
+
+    /** IDs of the current heads, which change whenever an execution runs anything. */
+    private static String heads(FlowExecution execution) {
+        StringBuilder b = new StringBuilder();
+        for (FlowNode head : execution.getCurrentHeads()) {
+            b.append(head.getId()).append(' ');
+        }
+        return b.append(execution.isComplete()).toString();
+    }
+
+    private static Element toDom(FlowExecution execution) throws IOException {
+        Document doc;
+        try {
+            doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        } catch (ParserConfigurationException x) {
+            throw new IOException(x);
+        }
+        Run.XSTREAM2.marshal(execution, new DomWriter(doc));
+        return doc.getDocumentElement();
+    }
+
+    private static String toXml(Node node) throws IOException {
+        StringWriter w = new StringWriter();
+        try {
+            Transformer t = TransformerFactory.newInstance().newTransformer();
+            t.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+            t.transform(new DOMSource(node), new StreamResult(w));
+        } catch (TransformerException x) {
+            throw new IOException(x);
+        }
+        return w.toString();
+    }
+
+    private static Element parse(String xml) throws IOException {
+        try {
+            return XMLUtils.parse(new StringReader(xml)).getDocumentElement();
+        } catch (SAXException x) {
+            throw new IOException(x);
+        }
+    }
+
+    private static boolean isExtensionOf(List<Action> actions, List<Action> prefix) {
+        if (actions.size() < prefix.size()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.size(); i++) {
+            if (actions.get(i) != prefix.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /** @param limit the size of the whole file, which no string can exceed */
+    private static String readString(DataInputStream in, long limit) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > limit) {
+            throw new StreamCorruptedException("bad string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Bytes appended to journals instead of being written as snapshots. */
+    static long getAppendedBytes() {
+        return appendedBytes.get();
+    }
+
+    /** Number of saves recorded as journal appends. */
+    static long getAppends() {
+        return appends.get();
+    }
+
+    /** Number of full snapshots written while journaling was enabled. */
+    static long getSnapshots() {
+        return snapshots.get();
+    }
+
+    @Extension public static final class Metrics implements PersistenceMetrics.Source {
+        @Override public void contribute(@NonNull JSONObject json) {
+            JSONObject journal = new JSONObject();
+            journal.put("appends", getAppends());
+            journal.put("appendedBytes", getAppendedBytes());
+            journal.put("snapshots", getSnapshots());
+            PersistenceMetrics.section(json, "save").put("journal", journal);
+        }
+    }
+
+}
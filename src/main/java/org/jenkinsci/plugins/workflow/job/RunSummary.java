@@ -0,0 +1,200 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.Result;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import net.sf.json.JSONObject;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * The handful of facts about a completed build needed by listings, kept in a small fixed-layout file beside {@code build.xml}
+ * so they can be read without unmarshaling the whole {@link WorkflowRun}.
+ * Written by {@link WorkflowRun#save} once the build is complete; builds from older versions get one the next time they are loaded.
+ */
+@Restricted(NoExternalUse.class)
+public final class RunSummary {
+
+    private static final Logger LOGGER = Logger.getLogger(RunSummary.class.getName());
+
+    static final String FILE_NAME = "build-summary.bin";
+
+    private static final int MAGIC = 0x574a5253; // WJRS
+    private static final short VERSION = 1;
+    /** Size of the file: magic, version, number, result ordinal, timestamp, start time, duration, keep-log flag. */
+    static final int LENGTH = 4 + 2 + 4 + 4 + 8 + 8 + 8 + 1;
+
+    private static final Result[] RESULTS = {Result.SUCCESS, Result.UNSTABLE, Result.FAILURE, Result.NOT_BUILT, Result.ABORTED};
+
+    private static final AtomicLong reads = new AtomicLong();
+    private static final AtomicLong fallbacks = new AtomicLong();
+
+    private final int number;
+    private final @CheckForNull Result result;
+    private final long timestamp;
+    private final long startTimeInMillis;
+    private final long duration;
+    private final boolean keepLog;
+
+    RunSummary(int number, @CheckForNull Result result, long timestamp, long startTimeInMillis, long duration, boolean keepLog) {
+        this.number = number;
+        this.result = result;
+        this.timestamp = timestamp;
+        this.startTimeInMillis = startTimeInMillis;
+        this.duration = duration;
+        this.keepLog = keepLog;
+    }
+
+    /** Summarizes a build already in memory. */
+    static @NonNull RunSummary of(@NonNull WorkflowRun run) {
+        return new RunSummary(run.getNumber(), run.getResult(), run.getTimeInMillis(), run.getStartTimeInMillis(), run.getDuration(), run.isKeepLog());
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    /** @return null while the build is still running */
+    public @CheckForNull Result getResult() {
+        return result;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public long getStartTimeInMillis() {
+        return startTimeInMillis;
+    }
+
+    public long getDuration() {
+        return duration;
+    }
+
+    public boolean isKeepLog() {
+        return keepLog;
+    }
+
+    /** Same field names as the corresponding {@code api/json} properties of a build. */
+    @NonNull JSONObject toJSON() {
+        JSONObject json = new JSONObject();
+        json.put("number", number);
+        json.put("result", result != null ? result.toString() : null);
+        json.put("building", result == null);
+        json.put("timestamp", timestamp);
+        json.put("duration", duration);
+        json.put("keepLog", keepLog);
+        return json;
+    }
+
+    /** Writes the summary file for a completed build. Must be called while holding the lock on {@code run}. */
+    static void write(@NonNull WorkflowRun run) {
+        Result r = run.getResult();
+        File file = new File(run.getRootDir(), FILE_NAME);
+        File tmp = new File(run.getRootDir(), FILE_NAME + ".tmp");
+        try {
+            try (OutputStream os = Files.newOutputStream(tmp.toPath()); DataOutputStream out = new DataOutputStream(os)) {
+                out.writeInt(MAGIC);
+                out.writeShort(VERSION);
+                out.writeInt(run.getNumber());
+                out.writeInt(r != null ? r.ordinal : -1);
+                out.writeLong(run.getTimeInMillis());
+                out.writeLong(run.getStartTimeInMillis());
+                out.writeLong(run.getDuration());
+                out.writeBoolean(run.isKeepLog());
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException x) {
+            LOGGER.log(Level.WARNING, "could not write " + file, x);
+        }
+    }
+
+    /**
+     * Reads the summary file of a build.
+     * @param buildDir the {@link WorkflowRun#getRootDir}
+     * @return null if there is no usable summary file, in which case the caller must load the build
+     */
+    static @CheckForNull RunSummary read(@NonNull File buildDir) {
+        File file = new File(buildDir, FILE_NAME);
+        try (InputStream is = Files.newInputStream(file.toPath()); DataInputStream in = new DataInputStream(is)) {
+            if (file.length() != LENGTH || in.readInt() != MAGIC || in.readShort() != VERSION) {
+                LOGGER.log(Level.FINE, "ignoring unrecognized {0}", file);
+                fallbacks.incrementAndGet();
+                return null;
+            }
+            int number = in.readInt();
+            int ordinal = in.readInt();
+            Result result = ordinal >= 0 && ordinal < RESULTS.length ? RESULTS[ordinal] : null;
+            RunSummary summary = new RunSummary(number, result, in.readLong(), in.readLong(), in.readLong(), in.readBoolean());
+            reads.incrementAndGet();
+            return summary;
+        } catch (NoSuchFileException x) {
+            fallbacks.incrementAndGet();
+            return null;
+        } catch (IOException x) {
+            LOGGER.log(Level.FINE, "could not read " + file, x);
+            fallbacks.incrementAndGet();
+            return null;
+        }
+    }
+
+    /** Number of summaries served from summary files. */
+    public static long getReads() {
+        return reads.get();
+    }
+
+    /** Number of summaries which required loading the full build. */
+    public static long getFallbacks() {
+        return fallbacks.get();
+    }
+
+    @Override public String toString() {
+        return "#" + number + " " + result;
+    }
+
+    @Extension public static final class Metrics implements PersistenceMetrics.Source {
+        @Override public void contribute(@NonNull JSONObject json) {
+            JSONObject load = PersistenceMetrics.section(json, "load");
+            load.put("summaryReads", getReads());
+            load.put("summaryFallbacks", getFallbacks());
+        }
+    }
+
+}
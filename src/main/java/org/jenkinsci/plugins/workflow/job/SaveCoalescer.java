@@ -0,0 +1,180 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.Extension;
+import hudson.init.Terminator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.util.SystemProperties;
+import jenkins.util.Timer;
+import net.sf.json.JSONObject;
+import org.jenkinsci.plugins.workflow.flow.FlowDurabilityHint;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Write-behind mode for the per-node saves requested under {@link FlowDurabilityHint#MAX_SURVIVABILITY}.
+ * Requests arriving while a write is already scheduled for the same build are merged into that write,
+ * so a burst of new nodes costs at most one {@code build.xml} rewrite per window.
+ * A request is merged only into a write which has not yet started, never into one which may already have serialized the build.
+ * Any synchronous {@link WorkflowRun#save} (including the one in {@code finish}) supersedes a pending write,
+ * and pending writes are flushed when Jenkins shuts down.
+ * Disabled unless {@link #WINDOW_MILLIS} is positive.
+ */
+@Restricted(NoExternalUse.class)
+public final class SaveCoalescer {
+
+    private static final Logger LOGGER = Logger.getLogger(SaveCoalescer.class.getName());
+
+    /** Maximum time a requested save may be deferred; zero or negative to save synchronously as before. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static long WINDOW_MILLIS = SystemProperties.getLong(SaveCoalescer.class.getName() + ".windowMillis", 0L);
+
+    private static final Map<WorkflowRun, Pending> PENDING = new ConcurrentHashMap<>();
+
+    private static final AtomicLong requested = new AtomicLong();
+    private static final AtomicLong written = new AtomicLong();
+    private static final AtomicLong coalesced = new AtomicLong();
+
+    /** A scheduled write; all fields guarded by its monitor. */
+    private static final class Pending {
+        int requests = 1;
+        ScheduledFuture<?> future;
+        /** Set once the write has started or been superseded, when this is also removed from {@link #PENDING}. */
+        boolean closed;
+    }
+
+    private SaveCoalescer() {}
+
+    /** Asks for {@code run} to be saved, either now or within the configured window. */
+    static void request(WorkflowRun run) {
+        requested.incrementAndGet();
+        long window = WINDOW_MILLIS;
+        if (window <= 0) {
+            written.incrementAndGet();
+            run.saveWithoutFailing();
+            return;
+        }
+        while (true) {
+            Pending pending = PENDING.computeIfAbsent(run, r -> new Pending());
+            synchronized (pending) {
+                if (pending.closed) {
+                    continue; // its write may already have serialized the build, so schedule another
+                }
+                if (pending.future == null) {
+                    pending.future = Timer.get().schedule(() -> flush(run, pending), window, TimeUnit.MILLISECONDS);
+                } else {
+                    pending.requests++;
+                    coalesced.incrementAndGet();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Marks a pending write as started or superseded, so that no further request is merged into it.
+     * @return the number of requests it covered, or 0 if it was already closed
+     */
+    private static int close(WorkflowRun run, Pending pending) {
+        synchronized (pending) {
+            if (pending.closed) {
+                return 0;
+            }
+            pending.closed = true;
+            PENDING.remove(run, pending);
+            if (pending.future != null) {
+                pending.future.cancel(false);
+            }
+            return pending.requests;
+        }
+    }
+
+    /** Called at the start of every real save, since that write covers whatever was pending. */
+    static void cancel(WorkflowRun run) {
+        Pending pending = PENDING.get(run);
+        if (pending != null) {
+            int requests = close(run, pending);
+            if (requests > 0) {
+                LOGGER.log(Level.FINER, "{0} pending save requests for {1} superseded", new Object[] {requests, run});
+            }
+        }
+    }
+
+    private static void flush(WorkflowRun run, Pending pending) {
+        int requests = close(run, pending); // cancelling the running future does not interrupt it
+        if (requests == 0) {
+            return; // already superseded
+        }
+        LOGGER.log(Level.FINER, "writing {0} coalesced save requests for {1}", new Object[] {requests, run});
+        written.incrementAndGet();
+        run.saveWithoutFailing();
+    }
+
+    /** Synchronously writes every build which still has a save pending. */
+    @Terminator public static void flushAll() {
+        for (Map.Entry<WorkflowRun, Pending> entry : PENDING.entrySet()) {
+            WorkflowRun run = entry.getKey();
+            if (close(run, entry.getValue()) > 0) {
+                written.incrementAndGet();
+                run.saveWithoutFailing();
+            }
+        }
+    }
+
+    /** Number of save requests received through {@link #request}. */
+    public static long getRequested() {
+        return requested.get();
+    }
+
+    /** Number of writes actually performed on behalf of {@link #request}. */
+    public static long getWritten() {
+        return written.get();
+    }
+
+    /** Number of save requests which were merged into an already scheduled write. */
+    public static long getCoalesced() {
+        return coalesced.get();
+    }
+
+    @Extension public static final class Metrics implements PersistenceMetrics.Source {
+        @Override public void contribute(@NonNull JSONObject json) {
+            JSONObject coalescer = new JSONObject();
+            coalescer.put("requested", getRequested());
+            coalescer.put("written", getWritten());
+            coalescer.put("coalesced", getCoalesced());
+            PersistenceMetrics.section(json, "save").put("coalescer", coalescer);
+        }
+    }
+
+}
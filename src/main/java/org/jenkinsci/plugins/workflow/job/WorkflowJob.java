@@ -72,12 +72,15 @@ import hudson.util.DescribableList;
 import hudson.widgets.HistoryWidget;
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -87,6 +90,7 @@ import jenkins.model.Jenkins;
 import jenkins.model.ParameterizedJobMixIn;
 import jenkins.model.lazy.LazyBuildMixIn;
 import jenkins.triggers.SCMTriggerItem;
+import net.sf.json.JSONArray;
 import net.sf.json.JSONObject;
 import org.jenkinsci.Symbol;
 import org.jenkinsci.plugins.workflow.flow.BlockableResume;
@@ -136,6 +140,7 @@ public final class WorkflowJob extends Job<WorkflowJob,WorkflowRun> implements L
 
     @Override public void onLoad(ItemGroup<? extends Item> parent, String name) throws IOException {
         super.onLoad(parent, name);
+        RunIndex.removeAll(getFullName()); // builds will be reloaded from disk
 
         if (buildMixIn == null) {
             buildMixIn = createBuildMixIn();
@@ -234,6 +239,125 @@ public final class WorkflowJob extends Job<WorkflowJob,WorkflowRun> implements L
         return buildMixIn.getBuildByNumber(n);
     }
 
+    /**
+     * Summarizes the most recent builds, newest first.
+     * Builds which are not already in memory are described from their {@link RunSummary} file where possible, rather than being loaded.
+     */
+    @Restricted(NoExternalUse.class)
+    public @NonNull List<RunSummary> getBuildSummaries(int limit) {
+        File buildDir = getBuildDir();
+        String[] names = buildDir.list();
+        if (names == null) {
+            return Collections.emptyList();
+        }
+        TreeSet<Integer> numbers = new TreeSet<>(Collections.reverseOrder());
+        for (String name : names) {
+            try {
+                numbers.add(Integer.parseInt(name));
+            } catch (NumberFormatException x) {
+                // lastSuccessfulBuild etc.
+            }
+        }
+        SortedMap<Integer, WorkflowRun> loaded = _getRuns().getLoadedBuilds();
+        List<RunSummary> summaries = new ArrayList<>();
+        for (int number : numbers) {
+            if (summaries.size() >= limit) {
+                break;
+            }
+            WorkflowRun run = loaded.get(number);
+            RunSummary summary = run != null ? RunSummary.of(run) : RunSummary.read(new File(buildDir, Integer.toString(number)));
+            if (summary == null) {
+                run = getBuildByNumber(number);
+                if (run == null) {
+                    continue;
+                }
+                summary = RunSummary.of(run);
+            }
+            summaries.add(summary);
+        }
+        return summaries;
+    }
+
+    /** Serves {@link #getBuildSummaries} as JSON, for example {@code buildSummaries?limit=20}. */
+    @Restricted(DoNotUse.class) // for Stapler routing only
+    public void doBuildSummaries(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        int limit = 100;
+        String limitParam = req.getParameter("limit");
+        if (limitParam != null) {
+            try {
+                limit = Math.max(0, Integer.parseInt(limitParam));
+            } catch (NumberFormatException x) {
+                rsp.sendError(StaplerResponse.SC_BAD_REQUEST, "invalid limit: " + limitParam);
+                return;
+            }
+        }
+        JSONArray builds = new JSONArray();
+        for (RunSummary summary : getBuildSummaries(limit)) {
+            builds.add(summary.toJSON());
+        }
+        JSONObject json = new JSONObject();
+        json.put("builds", builds);
+        rsp.setContentType("application/json;charset=UTF-8");
+        rsp.getWriter().print(json);
+    }
+
+    /**
+     * Searches the logs of recent builds for literal text, for example {@code searchLogs?q=OutOfMemoryError&builds=50&limit=20}.
+     * With {@code regex=true}, {@code q} is a regular expression instead; that needs a POST and {@link Item#CONFIGURE},
+     * since even a bounded search with a pathological pattern is expensive.
+     * Matches are streamed as they are found, one JSON object per line giving the build number, line number from one, and text,
+     * followed by {@code {"truncated":true}} if the search ran out of time or bytes.
+     */
+    @Restricted(DoNotUse.class) // for Stapler routing only
+    public void doSearchLogs(StaplerRequest req, StaplerResponse rsp) throws IOException, InterruptedException {
+        String q = req.getParameter("q");
+        if (q == null || q.isEmpty()) {
+            rsp.sendError(StaplerResponse.SC_BAD_REQUEST, "missing q");
+            return;
+        }
+        int builds;
+        int limit;
+        LogSearch search;
+        try {
+            String buildsParam = req.getParameter("builds");
+            String limitParam = req.getParameter("limit");
+            builds = Math.min(Math.max(0, buildsParam != null ? Integer.parseInt(buildsParam) : 20), LogSearch.MAX_BUILDS);
+            limit = Math.min(Math.max(0, limitParam != null ? Integer.parseInt(limitParam) : 100), 10000);
+            boolean regex = Boolean.parseBoolean(req.getParameter("regex"));
+            if (regex) {
+                if (!req.getMethod().equals("POST")) {
+                    rsp.setHeader("Allow", "POST");
+                    rsp.sendError(StaplerResponse.SC_METHOD_NOT_ALLOWED, "regex searches must be POSTed");
+                    return;
+                }
+                checkPermission(Item.CONFIGURE);
+            }
+            search = new LogSearch(q, regex);
+        } catch (IllegalArgumentException x) { // including NumberFormatException and PatternSyntaxException
+            rsp.sendError(StaplerResponse.SC_BAD_REQUEST, x.getMessage());
+            return;
+        }
+        List<WorkflowRun> runs = new ArrayList<>();
+        for (WorkflowRun run : getBuilds()) {
+            if (runs.size() >= builds) {
+                break;
+            }
+            runs.add(run);
+        }
+        rsp.setContentType("application/x-ndjson;charset=UTF-8");
+        PrintWriter w = rsp.getWriter();
+        boolean complete = search.search(runs, limit, match -> {
+            w.println(match.toJSON());
+            w.flush();
+            if (w.checkError()) {
+                throw new IOException("client went away");
+            }
+        });
+        if (!complete) {
+            w.println("{\"truncated\":true}");
+        }
+    }
+
     @Override public WorkflowRun getFirstBuild() {
         return buildMixIn.getFirstBuild();
     }
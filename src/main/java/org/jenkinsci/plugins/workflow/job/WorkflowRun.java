@@ -37,9 +37,10 @@ import hudson.FilePath;
 import hudson.Functions;
 import hudson.XmlFile;
 import hudson.console.AnnotatedLargeText;
-import hudson.console.ConsoleNote;
 import hudson.console.ModelHyperlinkNote;
+import hudson.model.Action;
 import hudson.model.BuildListener;
+import hudson.model.Computer;
 import hudson.model.Executor;
 import hudson.model.Item;
 import hudson.model.Queue;
@@ -61,27 +62,31 @@ import hudson.util.Iterators;
 import hudson.util.LogTaskListener;
 import hudson.util.NullStream;
 import hudson.util.PersistedList;
-import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.PrintWriter;
 import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import edu.umd.cs.findbugs.annotations.CheckForNull;
@@ -93,7 +98,10 @@ import jenkins.model.lazy.LazyBuildMixIn;
 import jenkins.model.queue.AsynchronousExecution;
 import jenkins.scm.RunWithSCM;
 import jenkins.util.Timer;
+import net.sf.json.JSONObject;
 import org.acegisecurity.Authentication;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.jelly.XMLOutput;
 import org.jenkinsci.plugins.workflow.FilePathUtils;
 import org.jenkinsci.plugins.workflow.actions.TimingAction;
 import org.jenkinsci.plugins.workflow.flow.BlockableResume;
@@ -112,6 +120,7 @@ import org.jenkinsci.plugins.workflow.graph.BlockStartNode;
 import org.jenkinsci.plugins.workflow.graph.FlowEndNode;
 import org.jenkinsci.plugins.workflow.graph.FlowNode;
 import org.jenkinsci.plugins.workflow.graphanalysis.DepthFirstScanner;
+import org.jenkinsci.plugins.workflow.job.console.HtmlConsoleCache;
 import org.jenkinsci.plugins.workflow.job.console.NewNodeConsoleNote;
 import org.jenkinsci.plugins.workflow.job.properties.DisableConcurrentBuildsJobProperty;
 import org.jenkinsci.plugins.workflow.log.LogStorage;
@@ -119,12 +128,12 @@ import org.jenkinsci.plugins.workflow.log.TaskListenerDecorator;
 import org.jenkinsci.plugins.workflow.steps.FlowInterruptedException;
 import org.jenkinsci.plugins.workflow.steps.StepContext;
 import org.jenkinsci.plugins.workflow.steps.StepExecution;
-import org.jenkinsci.plugins.workflow.support.PipelineIOUtils;
 import org.jenkinsci.plugins.workflow.support.concurrent.Futures;
 import org.jenkinsci.plugins.workflow.support.concurrent.WithThreadName;
 import org.jenkinsci.plugins.workflow.support.steps.input.POSTHyperlinkNote;
 import org.kohsuke.accmod.Restricted;
 import org.kohsuke.accmod.restrictions.DoNotUse;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
 import org.kohsuke.stapler.HttpResponse;
 import org.kohsuke.stapler.HttpResponses;
 import org.kohsuke.stapler.StaplerRequest;
@@ -187,6 +196,8 @@ public final class WorkflowRun extends Run<WorkflowJob,WorkflowRun> implements F
     /**
      * Flag for whether or not the build has completed somehow.
      * This was previously a transient field, so we may need to recompute in {@link #onLoad} based on {@link FlowExecution#isComplete}.
+     * This is the persisted form of {@link State#COMPLETED}, set only by {@link #markCompleted} and while loading;
+     * checks of the lifecycle at runtime should use {@link #state()} instead.
      */
     volatile Boolean completed;  // Non-private for testing
 
@@ -196,11 +207,73 @@ public final class WorkflowRun extends Run<WorkflowJob,WorkflowRun> implements F
      */
     private transient volatile Object metadataGuard = new Object();
 
+    /**
+     * Phases a build moves through, only ever forward.
+     * Unlike {@link #completed} this is never persisted, and is derived again after loading.
+     */
+    enum State {
+        /** Created but {@link #run} not yet called. */
+        NEW,
+        /** Creating the {@link FlowExecution}. */
+        STARTING,
+        /** {@link #execution} is set and the flow has not yet ended. */
+        RUNNING,
+        /** {@link #finish} has been entered. */
+        COMPLETING,
+        /** {@link #completed} has been set. */
+        COMPLETED
+    }
+
+    /**
+     * Current phase, or null if not yet derived (for example right after unmarshaling).
+     * Advanced without locking by {@link #advance}, so that {@link #isInProgress} can answer from it.
+     * @see #state()
+     */
+    private transient volatile State state;
+
+    private static final AtomicReferenceFieldUpdater<WorkflowRun, State> STATE = AtomicReferenceFieldUpdater.newUpdater(WorkflowRun.class, State.class, "state");
+
     /** JENKINS-26761: supposed to always be set but sometimes is not. Access only through {@link #checkouts(TaskListener)}. */
     private @CheckForNull List<SCMCheckout> checkouts;
     // TODO could use a WeakReference to reduce memory, but that complicates how we add to it incrementally; perhaps keep a List<WeakReference<ChangeLogSet<?>>>
     private transient List<ChangeLogSet<? extends ChangeLogSet.Entry>> changeSets;
 
+    /**
+     * Incremented before each full snapshot written by {@link #save},
+     * so that a {@link RunJournal} can tell which snapshot it extends and {@link RunCodec#forLoad} which snapshot is newer.
+     * Null, and so left out of {@code build.xml}, until a save uses either.
+     */
+    private @CheckForNull Long snapshotGeneration;
+
+    /** {@link #snapshotGeneration}, or zero if it has never been recorded. */
+    long snapshotGeneration() {
+        Long g = snapshotGeneration;
+        return g != null ? g : 0;
+    }
+
+    /** Used by {@link #save} when {@link RunJournal#ENABLED}. */
+    private transient @CheckForNull RunJournal journal;
+
+    /** The undecorated overall log when {@link AsyncLogWriter#ENABLED}. */
+    private transient volatile AsyncLogWriter.Listener asyncListener;
+
+    /** The buffered overall log, while this build is running with {@link AsyncLogWriter#ENABLED}. */
+    @CheckForNull AsyncLogWriter.Listener asyncListener() {
+        return asyncListener;
+    }
+
+    /** @see LogQuota#of */
+    transient volatile LogQuota logQuota;
+
+    /** @see #lineIndex */
+    private transient volatile LineIndex lineIndex;
+
+    /** Length of {@code consoleText} once complete, if known. */
+    transient volatile Long consoleTextLength;
+
+    /** Number of writes of this build since it was started or loaded, for {@link PersistenceMetrics}. */
+    private transient int saves;
+
     /** True when first started, false when running after a restart. */
     private transient boolean firstTime;
 
@@ -220,6 +293,40 @@ public final class WorkflowRun extends Run<WorkflowJob,WorkflowRun> implements F
         return metadataGuard;
     }
 
+    /** Current lifecycle phase, deriving it from persisted fields if this build was just loaded. */
+    @NonNull State state() {
+        State s = state;
+        if (s == null) {
+            STATE.compareAndSet(this, null, Boolean.TRUE.equals(completed) ? State.COMPLETED : execution != null ? State.RUNNING : State.NEW);
+            s = state;
+        }
+        return s;
+    }
+
+    /**
+     * Moves to a later phase, unless already there or beyond.
+     * @return true if this call changed the phase
+     */
+    private boolean advance(@NonNull State to) {
+        while (true) {
+            State from = state();
+            if (from.compareTo(to) >= 0) {
+                return false;
+            }
+            if (STATE.compareAndSet(this, from, to)) {
+                LOGGER.log(Level.FINER, "{0} moved from {1} to {2}", new Object[] {this, from, to});
+                return true;
+            }
+            stateRaces.incrementAndGet();
+        }
+    }
+
+    /** Sets {@link #completed} and the matching phase. */
+    private void markCompleted() {
+        completed = Boolean.TRUE;
+        advance(State.COMPLETED);
+    }
+
     /** Avoids creating new instances, analogous to {@link TaskListener#NULL} but as full StreamBuildListener. */
     static final StreamBuildListener NULL_LISTENER = new StreamBuildListener(new NullStream());
 
@@ -228,13 +335,17 @@ public final class WorkflowRun extends Run<WorkflowJob,WorkflowRun> implements F
         // Un-synchronized to prevent deadlocks (combination of run and metadataGuard)
         // Note that in portions where multithreaded access is possible we are already synchronizing on metadataGuard
         if (listener == null) {
-            if (Boolean.TRUE.equals(completed)) {
+            if (state() == State.COMPLETED) {
                 LOGGER.log(Level.WARNING, null, new IllegalStateException("trying to open a build log on " + this + " after it has completed"));
                 return NULL_LISTENER;
             }
             try {
                 // TODO to better handle in-VM restart (e.g. in JenkinsRule), move CpsFlowExecution.suspendAll logic into a FlowExecution.notifyShutdown override, then make FlowExecutionOwner.notifyShutdown also overridable, which for WorkflowRun.Owner should listener.close() as needed
-                listener = TaskListenerDecorator.apply(LogStorage.of(asFlowExecutionOwner()).overallListener(), asFlowExecutionOwner(), null);
+                BuildListener overall = LogStorage.of(asFlowExecutionOwner()).overallListener();
+                if (AsyncLogWriter.ENABLED) {
+                    overall = asyncListener = new AsyncLogWriter.Listener(overall);
+                }
+                listener = TaskListenerDecorator.apply(overall, asFlowExecutionOwner(), null);
             } catch (IOException | InterruptedException x) {
                 LOGGER.log(Level.WARNING, "Error trying to open build log file for writing, output will be lost: " + this, x);
                 return NULL_LISTENER;
@@ -308,7 +419,9 @@ public final class WorkflowRun extends Run<WorkflowJob,WorkflowRun> implements F
                 throw new AbortException("No flow definition, cannot run");
             }
 
+            advance(State.STARTING);
             Owner owner = new Owner(this);
+            RunIndex.put(this);
             FlowExecution newExecution = definition.create(owner, myListener, getAllActions());
 
             if (newExecution instanceof BlockableResume) {
@@ -327,6 +440,7 @@ public final class WorkflowRun extends Run<WorkflowJob,WorkflowRun> implements F
                 completed = Boolean.FALSE;
                 executionLoaded = true;
                 execution = newExecution;
+                advance(State.RUNNING);
             }
             SettableFuture<FlowExecution> exec = getSettableExecutionPromise();
             if (!exec.isDone()) {
@@ -448,7 +562,7 @@ public final class WorkflowRun extends Run<WorkflowJob,WorkflowRun> implements F
                     modified = true;
                 }
                 if (!Boolean.TRUE.equals(completed)) {
-                    completed = true;
+                    markCompleted();
                     modified = true;
                 }
                 if (modified) {
@@ -539,7 +653,55 @@ public final class WorkflowRun extends Run<WorkflowJob,WorkflowRun> implements F
         return isBuilding() && allowKill;
     }
 
-    private static final Map<String,WorkflowRun> LOADING_RUNS = new HashMap<>();
+    /** Builds currently being loaded, keyed by {@link #key}, each with a future completed at the end of {@link #onLoad}. */
+    private static final ConcurrentMap<String,LoadingRun> LOADING_RUNS = new ConcurrentHashMap<>();
+
+    private static final class LoadingRun {
+        final WorkflowRun run;
+        final CompletableFuture<Void> loaded = new CompletableFuture<>();
+        LoadingRun(WorkflowRun run) {
+            this.run = run;
+        }
+    }
+
+    /** How long {@link Owner#get} will wait for a build to finish loading. */
+    private static final long LOAD_WAIT_MINUTES = 5;
+
+    private static final AtomicLong stateRaces = new AtomicLong();
+    private static final AtomicLong executionLoadWaits = new AtomicLong();
+    private static final AtomicLong executionLoadWaitNanos = new AtomicLong();
+    private static final AtomicLong ownerWaits = new AtomicLong();
+    private static final AtomicLong ownerWaitNanos = new AtomicLong();
+
+    /** Number of times {@link FlowExecutionOwner#get} had to wait for a build to be loaded. */
+    @Restricted(NoExternalUse.class)
+    public static long getOwnerWaitCount() {
+        return ownerWaits.get();
+    }
+
+    /** Total time spent in {@link FlowExecutionOwner#get} waiting for builds to be loaded. */
+    @Restricted(NoExternalUse.class)
+    public static long getOwnerWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(ownerWaitNanos.get());
+    }
+
+    /** Number of lifecycle transitions which had to retry because another thread moved the build concurrently. */
+    @Restricted(NoExternalUse.class)
+    public static long getStateRaceCount() {
+        return stateRaces.get();
+    }
+
+    /** Number of {@link #getExecution} calls which blocked while another thread loaded the execution. */
+    @Restricted(NoExternalUse.class)
+    public static long getExecutionLoadWaitCount() {
+        return executionLoadWaits.get();
+    }
+
+    /** Total time spent in {@link #getExecution} blocked while another thread loaded the execution. */
+    @Restricted(NoExternalUse.class)
+    public static long getExecutionLoadWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(executionLoadWaitNanos.get());
+    }
 
     private String key() {
         return getParent().getFullName() + '/' + getId();
@@ -547,21 +709,27 @@ public final class WorkflowRun extends Run<WorkflowJob,WorkflowRun> implements F
 
     /** Hack to allow {@link #execution} to use an {@link Owner} referring to this run, even when it has not yet been loaded. */
     @Override public void reload() throws IOException {
-        synchronized (LOADING_RUNS) {
-            LOADING_RUNS.put(key(), this);
+        LoadingRun previous = LOADING_RUNS.put(key(), new LoadingRun(this));
+        if (previous != null) {
+            previous.loaded.complete(null); // let anyone waiting on a stale entry look again
         }
 
         // super.reload() forces result to be FAILURE, so working around that
-        new XmlFile(XSTREAM,new File(getRootDir(),"build.xml")).unmarshal(this);
+        File dir = getRootDir();
+        RunCodec codec = RunCodec.forLoad(dir);
+        codec.read(this, codec.file(dir));
+        state = null; // derive again from what was just read
     }
 
     @Override protected void onLoad() {
+        long start = System.nanoTime();
         try {
             synchronized (getMetadataGuard()) {
                 if (executionLoaded) {
                     LOGGER.log(Level.WARNING, "Double onLoad of build "+this);
                     return;
                 }
+                replayJournal();
                 boolean needsToPersist = completed == null;
                 super.onLoad();
 
@@ -583,7 +751,7 @@ public final class WorkflowRun extends Run<WorkflowJob,WorkflowRun> implements F
 
                         if (Boolean.FALSE.equals(completed)) {
                             getListener().getLogger().println("Resuming build at " + new Date() + " after Jenkins restart");
-                            Timer.get().submit(() -> Queue.getInstance().schedule(new AfterRestartTask(WorkflowRun.this), 0)); // JENKINS-31614
+                            ResumeEngine.get().submit(this); // JENKINS-31614
 
                             // we've been restarted while we were running. let's get the execution going again.
                             FlowExecutionListener.fireResumed(fetchedExecution);
@@ -594,19 +762,69 @@ public final class WorkflowRun extends Run<WorkflowJob,WorkflowRun> implements F
                 } else if (execution == null) {
                     completed = Boolean.TRUE;
                 }
+                advance(Boolean.TRUE.equals(completed) ? State.COMPLETED : State.RUNNING);
                 if (needsToPersist && completed) {
                     try {
                         save();
                     } catch (Exception ex) {
                         LOGGER.log(Level.WARNING, "Error while saving build to update completed flag "+this, ex);
                     }
+                } else if (Boolean.TRUE.equals(completed) && !new File(getRootDir(), RunSummary.FILE_NAME).isFile()) {
+                    synchronized (this) {
+                        RunSummary.write(this); // completed before summaries existed
+                    }
                 }
             }
         } finally {  // Ensure the run is ALWAYS removed from loading even if something failed, so threads awaken.
             checkouts(null); // only for diagnostics
-            synchronized (LOADING_RUNS) {
-                LOADING_RUNS.remove(key()); // or could just make the value type be WeakReference<WorkflowRun>
-                LOADING_RUNS.notifyAll();
+            RunIndex.put(this);
+            PersistenceMetrics.loaded(this, start);
+            LoadingRun loading = LOADING_RUNS.remove(key());
+            if (loading != null) {
+                loading.loaded.complete(null);
+            }
+        }
+    }
+
+    /** Applies and compacts a {@link RunJournal} left behind by a build which was running when Jenkins stopped. */
+    private void replayJournal() {
+        RunJournal leftover = new RunJournal(getRootDir());
+        BulkChange bc = new BulkChange(this);
+        boolean replayed;
+        try {
+            replayed = leftover.replay(new RunJournal.Target() {
+                @Override public void result(@NonNull Result r) {
+                    setResult(r);
+                }
+                @Override public void completed(boolean c) {
+                    completed = c;
+                }
+                @Override public void duration(long d) {
+                    WorkflowRun.this.duration = d;
+                }
+                @Override public void checkout(@NonNull SCMCheckout checkout) {
+                    checkouts(null).add(checkout);
+                }
+                @SuppressWarnings("deprecation")
+                @Override public void action(@NonNull Action action) {
+                    getActions().add(action);
+                }
+                @Override public void execution(@NonNull FlowExecution e) {
+                    execution = e;
+                }
+                @Override public FlowExecution currentExecution() {
+                    return execution;
+                }
+            }, snapshotGeneration());
+        } finally {
+            bc.abort();
+        }
+        if (replayed) {
+            try {
+                save();
+                leftover.discard();
+            } catch (IOException x) {
+                LOGGER.log(Level.WARNING, "failed to compact journal of " + this, x);
             }
         }
     }
@@ -622,11 +840,12 @@ public final class WorkflowRun extends Run<WorkflowJob,WorkflowRun> implements F
     /** Handles normal build completion (including errors) but also handles the case that the flow did not even start correctly, for example due to an error in {@link FlowExecution#start}. */
     private void finish(@NonNull Result r, @CheckForNull Throwable t) {
         try {
+            advance(State.COMPLETING);
             setResult(r);
             BuildListener myListener;
             synchronized (getMetadataGuard()) {
                 myListener = getListener();
-                completed = true;
+                markCompleted();
             }
             duration = Math.max(0, System.currentTimeMillis() - getStartTimeInMillis());
             LOGGER.log(Level.FINE, "{0} completed: {1}", new Object[]{toString(), getResult()});
@@ -653,6 +872,12 @@ public final class WorkflowRun extends Run<WorkflowJob,WorkflowRun> implements F
                 }
             }
             saveWithoutFailing(); // TODO useless if we are inside a BulkChange
+            PersistenceMetrics.completed(saves);
+            FramedLogStorage.finished(this);
+            ConsoleText.finished(this);
+            if (LineIndex.INDEX_ON_FINISH) {
+                LogScans.submit(this, "index log lines", () -> lineIndex().catchUp(getLogText()::writeRawLogTo));
+            }
             Timer.get().submit(() -> {
                 try {
                     getParent().logRotate();
@@ -664,6 +889,8 @@ public final class WorkflowRun extends Run<WorkflowJob,WorkflowRun> implements F
         } finally {  // Ensure this is ALWAYS removed from FlowExecutionList
             FlowExecutionList.get().unregister(new Owner(this));
             listener = null;
+            asyncListener = null;
+            logQuota = null;
         }
 
         try {
@@ -697,11 +924,17 @@ public final class WorkflowRun extends Run<WorkflowJob,WorkflowRun> implements F
         if (executionLoaded || execution == null) {  // Avoids highly-contended synchronization on run
             return execution;
         } else {  // Try to lazy-load execution
+            long start = System.nanoTime();
+            // Must be the run monitor rather than a dedicated lock: FlowExecution.onLoad may call back into synchronized methods such as save.
             synchronized (this) {  // Double-checked locking rendered safe by use of volatile field
                 FlowExecution fetchedExecution = execution;
                 if (executionLoaded || fetchedExecution == null) {
+                    // Another thread loaded (or discarded) it while we waited.
+                    executionLoadWaits.incrementAndGet();
+                    executionLoadWaitNanos.addAndGet(System.nanoTime() - start);
                     return fetchedExecution;
                 }
+                long loadStart = System.nanoTime();
                 try {
                     if (fetchedExecution instanceof BlockableResume) {
                         BlockableResume blockableExecution = (BlockableResume) fetchedExecution;
@@ -720,7 +953,7 @@ public final class WorkflowRun extends Run<WorkflowJob,WorkflowRun> implements F
                         if (fetchedExecution.isComplete()) {  // See JENKINS-50199 for cases where the execution is marked complete but build is not
                             // Somehow arrived at one of those weird states
                             LOGGER.log(Level.WARNING, "Found incomplete build with completed execution - display name: "+this.getFullDisplayName());
-                            this.completed = true;
+                            markCompleted();
                             Result finalResult = Result.FAILURE;
                             List<FlowNode> heads = fetchedExecution.getCurrentHeads();
                             if (!heads.isEmpty() && heads.get(0) instanceof FlowEndNode) {
@@ -742,12 +975,14 @@ public final class WorkflowRun extends Run<WorkflowJob,WorkflowRun> implements F
                         settablePromise.set(fetchedExecution);
                     }
                     executionLoaded = true;
+                    PersistenceMetrics.executionLoaded(this, loadStart, false);
                     return fetchedExecution;
                 } catch (Exception x) {
                     setResult(Result.FAILURE);
                     LOGGER.log(Level.WARNING, "Nulling out FlowExecution due to error in build " + this, x);
                     execution = null; // probably too broken to use
                     executionLoaded = true;
+                    PersistenceMetrics.executionLoaded(this, loadStart, true);
                     saveWithoutFailing(); // Ensure we do not try to load again
                     return null;
                 }
@@ -796,14 +1031,15 @@ public final class WorkflowRun extends Run<WorkflowJob,WorkflowRun> implements F
 
     @Exported
     @Override public boolean isInProgress() {
-        if (Boolean.TRUE.equals(completed)) {  // Has a persisted completion state
+        State s = state();
+        if (s == State.COMPLETED || s == State.NEW) {  // Finished, or never started
             return false;
-        } else {
-            // This may seem gratuitous but we MUST to check the execution in case 'completed' has not been set yet
-            // thus avoiding some (rare but possible) race conditions
-            FlowExecution exec = getExecution();
-            return exec != null && !exec.isComplete();
         }
+        // This may seem gratuitous but we MUST to check the execution in case 'completed' has not been set yet
+        // thus avoiding some (rare but possible) race conditions.
+        // Not getExecution(), which may take the run monitor to load it: an execution not yet loaded belongs to a build resumed as running.
+        FlowExecution exec = execution;
+        return exec != null && (!executionLoaded || !exec.isComplete());
     }
 
     @Override public boolean isLogUpdated() {
@@ -944,12 +1180,12 @@ public final class WorkflowRun extends Run<WorkflowJob,WorkflowRun> implements F
         }
         private @NonNull WorkflowRun run() throws IOException {
             if (run==null) {
-                WorkflowRun candidate;
-                synchronized (LOADING_RUNS) {
-                    candidate = LOADING_RUNS.get(key());
-                }
+                LoadingRun loading = LOADING_RUNS.get(key());
+                WorkflowRun candidate = loading != null ? loading.run : null;
                 if (candidate != null && candidate.getParent().getFullName().equals(job) && candidate.getId().equals(id)) {
                     run = candidate;
+                } else if ((candidate = RunIndex.get(job, id)) != null) {
+                    run = candidate;
                 } else {
                     final Jenkins jenkins = Jenkins.getInstanceOrNull();
                     if (jenkins == null) {
@@ -975,15 +1211,16 @@ public final class WorkflowRun extends Run<WorkflowJob,WorkflowRun> implements F
         @NonNull
         @Override public FlowExecution get() throws IOException {
             WorkflowRun r = run();
-            synchronized (LOADING_RUNS) {
-                int count = 5;
-                while (r.execution == null && LOADING_RUNS.containsKey(key()) && count-- > 0) {
-                    try (WithThreadName naming = new WithThreadName(": waiting for " + key())) {
-                        LOADING_RUNS.wait(/* 1m */60_000);
-                    } catch (InterruptedException x) {
-                        LOGGER.log(Level.WARNING, "failed to wait for " + r + " to be loaded", x);
-                        break;
-                    }
+            LoadingRun loading = r.execution == null ? LOADING_RUNS.get(key()) : null;
+            if (loading != null) {
+                ownerWaits.incrementAndGet();
+                long start = System.nanoTime();
+                try (WithThreadName naming = new WithThreadName(": waiting for " + key())) {
+                    loading.loaded.get(LOAD_WAIT_MINUTES, TimeUnit.MINUTES);
+                } catch (InterruptedException | ExecutionException | TimeoutException x) {
+                    LOGGER.log(Level.WARNING, "failed to wait for " + r + " to be loaded", x);
+                } finally {
+                    ownerWaitNanos.addAndGet(System.nanoTime() - start);
                 }
             }
             FlowExecution exec = r.getExecution();
@@ -1065,7 +1302,7 @@ public final class WorkflowRun extends Run<WorkflowJob,WorkflowRun> implements F
                 finish(((FlowEndNode) node).getResult(), exec != null ? exec.getCauseOfFailure() : null);
             } else {
                 if (exec != null && exec.getDurabilityHint().isPersistWithEveryStep()) {
-                    saveWithoutFailing();
+                    SaveCoalescer.request(WorkflowRun.this);
                 }
             }
         }
@@ -1119,19 +1356,30 @@ public final class WorkflowRun extends Run<WorkflowJob,WorkflowRun> implements F
 
     @NonNull
     @Override public InputStream getLogInputStream() throws IOException {
-        // Inefficient but probably rarely used anyway.
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        writeLogTo(getLogText()::writeRawLogTo, baos);
-        return new ByteArrayInputStream(baos.toByteArray());
+        return new LogInputStream(getLogText()::writeRawLogTo, Computer.threadPoolForRemoting);
     }
 
-    @Override public void doConsoleText(StaplerRequest req, StaplerResponse rsp) throws IOException {
-        rsp.setContentType("text/plain;charset=UTF-8");
-        try (OutputStream os = rsp.getCompressedOutputStream(req)) {
-            writeLogTo(getLogText()::writeLogTo, os);
+    @Override public void writeLogTo(long offset, @NonNull XMLOutput out) throws IOException {
+        if (HtmlConsoleCache.isEnabled() && !isLogUpdated()) {
+            HtmlConsoleCache.writeHtmlTo(this, offset, out.asWriter());
+        } else {
+            super.writeLogTo(offset, out);
         }
     }
 
+    @Override public void doConsoleText(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        ConsoleText.serve(this, req, rsp);
+    }
+
+    /**
+     * Streams the annotated console as server-sent events while the build runs, as an alternative to polling {@code logText/progressiveHtml}.
+     * Pass {@code start} (or {@code Last-Event-ID} when reconnecting) to first receive output from that raw log offset.
+     */
+    @Restricted(DoNotUse.class) // for Stapler routing only
+    public void doConsoleStream(StaplerRequest req, StaplerResponse rsp) throws IOException, InterruptedException {
+        ConsoleStream.serve(this, req, rsp);
+    }
+
     @NonNull
     @Override public Reader getLogReader() throws IOException {
         return getLogText().readAll();
@@ -1140,16 +1388,16 @@ public final class WorkflowRun extends Run<WorkflowJob,WorkflowRun> implements F
     @SuppressWarnings("deprecation")
     @NonNull
     @Override public String getLog() throws IOException {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        writeLogTo(getLogText()::writeRawLogTo, baos);
-        return baos.toString("UTF-8");
+        try (InputStream is = getLogInputStream()) {
+            return IOUtils.toString(is, StandardCharsets.UTF_8);
+        }
     }
 
-    @FunctionalInterface private interface WriteMethod {
+    @FunctionalInterface interface WriteMethod {
         long writeLogTo(long start, OutputStream os) throws IOException;
     }
 
-    private void writeLogTo(WriteMethod method, OutputStream os) throws IOException {
+    static void writeLogTo(WriteMethod method, OutputStream os) throws IOException {
         // Similar to Run#writeWholeLogTo but terminates even if !logText.complete:
         long pos = 0;
         while (true) {
@@ -1163,24 +1411,70 @@ public final class WorkflowRun extends Run<WorkflowJob,WorkflowRun> implements F
 
     @NonNull
     @Override public List<String> getLog(int maxLines) throws IOException {
-        int lineCount = 0;
-        List<String> logLines = new LinkedList<>();
-        if (maxLines == 0) {
-            return logLines;
-        }
-        try (BufferedReader reader = new BufferedReader(getLogReader())) {
-            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
-                logLines.add(line);
-                ++lineCount;
-                if (lineCount > maxLines) {
-                    logLines.remove(0);
+        AnnotatedLargeText<?> text = getLogText();
+        return LogTail.tail(text.length(), text::writeRawLogTo, getCharset(), maxLines);
+    }
+
+    private LineIndex lineIndex() {
+        LineIndex index = lineIndex;
+        if (index == null) {
+            synchronized (getMetadataGuard()) {
+                index = lineIndex;
+                if (index == null) {
+                    index = new LineIndex(getRootDir());
+                    lineIndex = index;
                 }
             }
         }
-        if (lineCount > maxLines) {
-            logLines.set(0, "[...truncated " + (lineCount - (maxLines - 1)) + " lines...]");
+        return index;
+    }
+
+    /**
+     * Serves a page of the plain-text log, for example {@code logLines?from=5000&count=100}.
+     * Lines are numbered from zero; {@code X-Total-Lines} gives the number written so far.
+     */
+    @Restricted(DoNotUse.class) // for Stapler routing only
+    public void doLogLines(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        long from;
+        int count;
+        try {
+            String fromParam = req.getParameter("from");
+            String countParam = req.getParameter("count");
+            from = fromParam != null ? Long.parseLong(fromParam) : 0;
+            count = countParam != null ? Integer.parseInt(countParam) : 100;
+        } catch (NumberFormatException x) {
+            rsp.sendError(StaplerResponse.SC_BAD_REQUEST, x.toString());
+            return;
+        }
+        LineIndex index = lineIndex();
+        List<String> lines = index.lines(getLogText()::writeRawLogTo, getCharset(), from, count);
+        rsp.setContentType("text/plain;charset=UTF-8");
+        rsp.setHeader("X-Total-Lines", Long.toString(index.getLineCount()));
+        rsp.setHeader("X-More-Data", Boolean.toString(isLogUpdated()));
+        PrintWriter w = rsp.getWriter();
+        for (String line : lines) {
+            w.print(line);
+            w.print('\n');
+        }
+    }
+
+    /**
+     * Serves the plain-text output of one node, for example {@code nodeLog?id=12},
+     * or of everything inside a block such as a stage, for example {@code nodeLog?stage=Build}.
+     */
+    @Restricted(DoNotUse.class) // for Stapler routing only
+    public void doNodeLog(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        FlowExecution exec = getExecution();
+        FlowNode node = exec != null ? NodeLogs.find(exec, req.getParameter("id"), req.getParameter("stage")) : null;
+        if (node == null) {
+            rsp.sendError(StaplerResponse.SC_NOT_FOUND);
+            return;
+        }
+        List<FlowNode> nodes = NodeLogs.nodesOf(exec, node);
+        rsp.setContentType("text/plain;charset=UTF-8");
+        try (OutputStream os = rsp.getCompressedOutputStream(req)) {
+            NodeLogs.write(this, LogStorage.of(asFlowExecutionOwner()), nodes, !isLogUpdated(), os);
         }
-        return ConsoleNote.removeNotes(logLines);
     }
 
     @Deprecated
@@ -1214,8 +1508,19 @@ public final class WorkflowRun extends Run<WorkflowJob,WorkflowRun> implements F
         }
     }
 
+    /** Lazily creates {@link #journal} if journaling is enabled. Call only while synchronized on the run. */
+    private @CheckForNull RunJournal journal() {
+        if (!RunJournal.ENABLED) {
+            return null;
+        }
+        if (journal == null) {
+            journal = new RunJournal(getRootDir());
+        }
+        return journal;
+    }
+
     /** Save the run but swallow and log any exception */
-    private void saveWithoutFailing() {
+    void saveWithoutFailing() {
         try {
             save();
         } catch (Exception x) {
@@ -1227,6 +1532,7 @@ public final class WorkflowRun extends Run<WorkflowJob,WorkflowRun> implements F
     public void save() throws IOException {
 
         if(BulkChange.contains(this))   return;
+        SaveCoalescer.cancel(this); // this write covers anything requested so far
         File loc = new File(getRootDir(),"build.xml");
         XmlFile file = new XmlFile(XSTREAM,loc);
 
@@ -1240,9 +1546,34 @@ public final class WorkflowRun extends Run<WorkflowJob,WorkflowRun> implements F
         boolean completeAsynchronousExecution = false;
         try {
             synchronized (this) {
+                long start = System.nanoTime();
                 completeAsynchronousExecution = Boolean.TRUE.equals(completed);
-                PipelineIOUtils.writeByXStream(this, loc, XSTREAM2, isAtomic);
-                SaveableListener.fireOnChange(this, file);
+                RunJournal j = journal();
+                long journaledBytes = j != null ? j.length() : 0;
+                if (j != null && j.append(this, isAtomic)) {
+                    PersistenceMetrics.saved(this, start, j.length() - journaledBytes, isAtomic, true);
+                } else {
+                    RunCodec codec = RunCodec.forSave(this);
+                    File snapshot = codec.file(getRootDir());
+                    if (snapshotGeneration != null || j != null || codec == RunCodec.BINARY) {
+                        snapshotGeneration = snapshotGeneration() + 1;
+                    }
+                    codec.write(this, snapshot, isAtomic);
+                    if (codec != RunCodec.BINARY) {
+                        Files.deleteIfExists(RunCodec.BINARY.file(getRootDir()).toPath());
+                    }
+                    if (j != null) {
+                        j.snapshotWritten(this);
+                    }
+                    PersistenceMetrics.saved(this, start, snapshot.length(), isAtomic, false);
+                    if (codec == RunCodec.XML) {
+                        SaveableListener.fireOnChange(this, file); // listeners read build.xml, which journal appends and build.bin leave as it was
+                    }
+                }
+                saves++;
+                if (completeAsynchronousExecution) {
+                    RunSummary.write(this);
+                }
             }
         } finally {
             if (completeAsynchronousExecution) {
@@ -1256,4 +1587,18 @@ public final class WorkflowRun extends Run<WorkflowJob,WorkflowRun> implements F
             }
         }
     }
+
+    @Restricted(DoNotUse.class) // impl
+    @Extension public static final class Metrics implements PersistenceMetrics.Source {
+        @Override public void contribute(@NonNull JSONObject json) {
+            JSONObject load = PersistenceMetrics.section(json, "load");
+            load.put("executionLoadWaits", getExecutionLoadWaitCount());
+            load.put("executionLoadWaitMillis", getExecutionLoadWaitMillis());
+            JSONObject owners = PersistenceMetrics.section(json, "owners");
+            owners.put("waits", getOwnerWaitCount());
+            owners.put("waitMillis", getOwnerWaitMillis());
+            owners.put("stateRaces", getStateRaceCount());
+        }
+    }
+
 }
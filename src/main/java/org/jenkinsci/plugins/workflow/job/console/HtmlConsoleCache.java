@@ -0,0 +1,341 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job.console;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.Extension;
+import hudson.Util;
+import hudson.console.AnnotatedLargeText;
+import hudson.console.ConsoleAnnotator;
+import hudson.model.PeriodicWork;
+import hudson.model.Run;
+import hudson.model.listeners.RunListener;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.servlet.http.Cookie;
+import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
+import net.sf.json.JSONObject;
+import org.apache.commons.jelly.XMLOutput;
+import org.jenkinsci.plugins.workflow.job.PersistenceMetrics;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.kohsuke.stapler.Stapler;
+import org.kohsuke.stapler.StaplerRequest;
+
+/**
+ * Optional cache of the annotated HTML console of completed builds, so that each view of {@code console}
+ * need not decode the log and run every {@link ConsoleAnnotator} again.
+ * The first view of a given offset is rendered as usual, through the storage's own
+ * {@link AnnotatedLargeText#writeHtmlTo}, in the viewing request, and copied into a gzipped cache file as it is sent;
+ * later views of the same offset by the same viewer are served from that file.
+ * Annotators and notes may render differently per viewer (permission-gated links, time zone, locale, the root URL),
+ * so each cache file is specific to what the request can tell about the viewer: see {@link #viewer}.
+ * In practice a completed build is viewed from only a couple of offsets: the start, and the tail shown for large logs.
+ * Cache files live under {@code $JENKINS_HOME/cache/pipeline-console-html} and are evicted by age and total size.
+ */
+@Restricted(NoExternalUse.class)
+public final class HtmlConsoleCache {
+
+    private static final Logger LOGGER = Logger.getLogger(HtmlConsoleCache.class.getName());
+
+    /** Whether to cache rendered consoles at all. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static boolean ENABLED = SystemProperties.getBoolean(HtmlConsoleCache.class.getName() + ".enabled", false);
+
+    /** Total size of cache files above which the least recently used are deleted. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static long MAX_BYTES = SystemProperties.getLong(HtmlConsoleCache.class.getName() + ".maxBytes", 1024L * 1024 * 1024);
+
+    /** Time since last use after which a cache file is deleted. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static long MAX_AGE_MILLIS = SystemProperties.getLong(HtmlConsoleCache.class.getName() + ".maxAgeMillis", TimeUnit.DAYS.toMillis(7));
+
+    /** Logs larger than this are not cached; zero or negative for no limit. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static long MAX_LOG_BYTES = SystemProperties.getLong(HtmlConsoleCache.class.getName() + ".maxLogBytes", 256L * 1024 * 1024);
+
+    private static final int MAGIC = 0x574A4843; // WJHC
+    private static final int VERSION = 2;
+
+    /** Cookies which identify a session rather than express a preference, so are left out of {@link #viewer}. */
+    private static final Set<String> SESSION_COOKIES = Set.of("remember-me", "screenResolution");
+
+    private static final Set<String> RENDERING = ConcurrentHashMap.newKeySet();
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong renders = new AtomicLong();
+    private static final AtomicLong evictions = new AtomicLong();
+
+    private HtmlConsoleCache() {}
+
+    /** Whether {@link #writeHtmlTo} should be used for completed builds. */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    static @NonNull File dir() {
+        return new File(Jenkins.get().getRootDir(), "cache/pipeline-console-html");
+    }
+
+    /** The cache file for the current viewer. */
+    static @NonNull File fileFor(@NonNull Run<?, ?> run, long offset) {
+        return new File(dir(), Util.getDigestOf(run.getExternalizableId()) + "-" + offset + "-" + viewer() + ".html.gz");
+    }
+
+    /**
+     * Digest of everything about the current request which annotators could reasonably vary their output on:
+     * the user, and so their permissions and user properties such as the time zone;
+     * the locale and context path; and the cookies, where some plugins keep display preferences.
+     */
+    private static @NonNull String viewer() {
+        StringBuilder b = new StringBuilder(Jenkins.getAuthentication2().getName());
+        StaplerRequest req = Stapler.getCurrentRequest();
+        if (req != null) {
+            b.append('\n').append(req.getLocale()).append('\n').append(req.getContextPath());
+            Cookie[] cookies = req.getCookies();
+            if (cookies != null) {
+                Map<String, String> sorted = new TreeMap<>();
+                for (Cookie c : cookies) {
+                    if (!c.getName().startsWith("JSESSIONID") && !SESSION_COOKIES.contains(c.getName())) {
+                        sorted.put(c.getName(), c.getValue());
+                    }
+                }
+                sorted.forEach((k, v) -> b.append('\n').append(k).append('=').append(v));
+            }
+        }
+        return Util.getDigestOf(b.toString());
+    }
+
+    /**
+     * Writes the HTML console of a completed build from {@code offset}, as {@link Run#writeLogTo(long, XMLOutput)} would:
+     * from the cache if it is there, otherwise rendering it and caching a copy.
+     */
+    public static void writeHtmlTo(@NonNull WorkflowRun run, long offset, @NonNull Writer w) throws IOException {
+        File f = fileFor(run, offset);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)))) {
+            if (readHeader(in, run)) {
+                hits.incrementAndGet();
+                if (!f.setLastModified(System.currentTimeMillis())) {
+                    LOGGER.fine(() -> "could not touch " + f);
+                }
+                try (Reader r = new InputStreamReader(new GZIPInputStream(in), StandardCharsets.UTF_8)) {
+                    r.transferTo(w);
+                }
+                w.flush();
+                return;
+            }
+        } catch (FileNotFoundException x) {
+            // not yet rendered
+        } catch (IOException x) {
+            LOGGER.log(Level.WARNING, "discarding corrupt " + f, x);
+            Files.deleteIfExists(f.toPath());
+        }
+        misses.incrementAndGet();
+        long length = run.getLogText().length();
+        long start = lineStart(run, offset);
+        if ((MAX_LOG_BYTES > 0 && length > MAX_LOG_BYTES) || !RENDERING.add(f.getName())) {
+            run.getLogText().writeHtmlTo(start, w);
+            return;
+        }
+        try {
+            render(run, start, length, f, w);
+        } finally {
+            RENDERING.remove(f.getName());
+        }
+        evict();
+    }
+
+    /** Moves a nonzero offset to the start of the next line, as {@link Run#writeLogTo(long, XMLOutput)} does. */
+    private static long lineStart(WorkflowRun run, long offset) throws IOException {
+        if (offset <= 0) {
+            return 0;
+        }
+        try (InputStream in = new BufferedInputStream(run.getLogInputStream())) {
+            if (in.skip(offset) != offset) {
+                return offset;
+            }
+            long start = offset;
+            int c;
+            do {
+                c = in.read();
+                start = c == -1 ? 0 : start + 1;
+            } while (c != -1 && c != '\n');
+            return start;
+        }
+    }
+
+    private static boolean readHeader(DataInputStream in, Run<?, ?> run) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("unrecognized header");
+        }
+        return in.readLong() == run.getTimeInMillis() && in.readLong() == run.getLogText().length(); // else some other build with the same ID, or the log changed
+    }
+
+    /** Renders to {@code w} and to a temporary file at the same time, keeping the file only if everything was written. */
+    private static void render(WorkflowRun run, long start, long length, File f, Writer w) throws IOException {
+        File dir = f.getParentFile();
+        Files.createDirectories(dir.toPath());
+        File tmp = File.createTempFile(f.getName(), ".tmp", dir);
+        try {
+            try (OutputStream os = new FileOutputStream(tmp)) {
+                DataOutputStream header = new DataOutputStream(os);
+                header.writeInt(MAGIC);
+                header.writeInt(VERSION);
+                header.writeLong(run.getTimeInMillis());
+                header.writeLong(length);
+                header.flush();
+                try (Writer copy = new OutputStreamWriter(new GZIPOutputStream(os), StandardCharsets.UTF_8)) {
+                    run.getLogText().writeHtmlTo(start, new Writer() {
+                        @Override public void write(char[] cbuf, int off, int len) throws IOException {
+                            w.write(cbuf, off, len);
+                            copy.write(cbuf, off, len);
+                        }
+                        @Override public void flush() throws IOException {
+                            w.flush();
+                        }
+                        @Override public void close() {
+                            // left to the callers
+                        }
+                    });
+                }
+            }
+            w.flush();
+            Files.move(tmp.toPath(), f.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            renders.incrementAndGet();
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+    }
+
+    /** Deletes cache files unused for {@link #MAX_AGE_MILLIS}, then the least recently used beyond {@link #MAX_BYTES}. */
+    static void evict() {
+        File[] files = dir().listFiles((d, name) -> name.endsWith(".html.gz"));
+        if (files == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified).reversed());
+        long total = 0;
+        for (File f : files) {
+            long size = f.length();
+            if (now - f.lastModified() > MAX_AGE_MILLIS || total + size > MAX_BYTES) {
+                if (f.delete()) {
+                    evictions.incrementAndGet();
+                }
+            } else {
+                total += size;
+            }
+        }
+    }
+
+    /** Number of console views served from the cache. */
+    public static long getHits() {
+        return hits.get();
+    }
+
+    /** Number of console views of completed builds which were not in the cache. */
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    /** Number of consoles copied into the cache. */
+    public static long getRenders() {
+        return renders.get();
+    }
+
+    /** Number of cache files deleted by {@link #evict}. */
+    public static long getEvictions() {
+        return evictions.get();
+    }
+
+    @Extension public static final class Evictor extends PeriodicWork {
+        @Override public long getRecurrencePeriod() {
+            return HOUR;
+        }
+        @Override protected void doRun() {
+            if (ENABLED) {
+                evict();
+            }
+        }
+    }
+
+    @Extension public static final class RunListenerImpl extends RunListener<WorkflowRun> {
+        @Override public void onDeleted(WorkflowRun run) {
+            String prefix = Util.getDigestOf(run.getExternalizableId()) + "-";
+            File[] files = dir().listFiles((d, name) -> name.startsWith(prefix));
+            if (files != null) {
+                for (File f : files) {
+                    try {
+                        Files.deleteIfExists(f.toPath());
+                    } catch (IOException x) {
+                        LOGGER.log(Level.FINE, null, x);
+                    }
+                }
+            }
+        }
+    }
+
+    @Extension public static final class Metrics implements PersistenceMetrics.Source {
+        @Override public void contribute(@NonNull JSONObject json) {
+            JSONObject console = PersistenceMetrics.section(json, "console");
+            console.put("htmlCacheHits", getHits());
+            console.put("htmlCacheMisses", getMisses());
+            console.put("htmlCacheRenders", getRenders());
+            console.put("htmlCacheEvictions", getEvictions());
+        }
+    }
+
+}
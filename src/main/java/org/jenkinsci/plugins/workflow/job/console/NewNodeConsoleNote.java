@@ -26,7 +26,6 @@ package org.jenkinsci.plugins.workflow.job.console;
 
 import hudson.Extension;
 import hudson.MarkupText;
-import hudson.Util;
 import hudson.console.ConsoleAnnotationDescriptor;
 import hudson.console.ConsoleAnnotator;
 import hudson.console.ConsoleNote;
@@ -120,14 +119,9 @@ public class NewNodeConsoleNote extends ConsoleNote<WorkflowRun> {
         FlowExecution execution = context.getExecution();
         if (execution != null) {
             try {
-                FlowNode node = execution.getNode(id);
-                if (node != null) {
-                    LabelAction a = node.getAction(LabelAction.class);
-                    if (a != null) {
-                        String displayName = a.getDisplayName();
-                        assert displayName != null;
-                        startTag.append("\" label=\"").append(Util.escape(displayName)); // TODO is there some better way to escape for attribute values?
-                    }
+                String label = NodeLabelCache.of(context).label(execution, id);
+                if (label != null) {
+                    startTag.append("\" label=\"").append(label);
                 }
             } catch (IOException x) {
                 Logger.getLogger(NewNodeConsoleNote.class.getName()).log(Level.WARNING, null, x);
@@ -0,0 +1,189 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job.console;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.Extension;
+import hudson.Util;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import jenkins.util.SystemProperties;
+import net.sf.json.JSONObject;
+import org.jenkinsci.plugins.workflow.actions.LabelAction;
+import org.jenkinsci.plugins.workflow.flow.FlowExecution;
+import org.jenkinsci.plugins.workflow.graph.FlowNode;
+import org.jenkinsci.plugins.workflow.graphanalysis.DepthFirstScanner;
+import org.jenkinsci.plugins.workflow.job.PersistenceMetrics;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Escaped {@link LabelAction} display names of the nodes of one build, as used by {@link NewNodeConsoleNote#startTagFor}.
+ * Rendering a log otherwise loads the node for every {@code [Pipeline]} line.
+ * Once the execution is complete the labels are collected in a single pass over the graph
+ * and never change afterwards, so lookups need no locking;
+ * while it is running a label may still be added to a node that is a current head,
+ * so the absence of a label is remembered only for nodes which are no longer heads.
+ */
+@Restricted(NoExternalUse.class)
+public final class NodeLabelCache {
+
+    /** Maximum number of labelled nodes remembered per build; beyond that, nodes are loaded as before. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static int MAX_ENTRIES = SystemProperties.getInteger(NodeLabelCache.class.getName() + ".maxEntries", 10000);
+
+    /** Remembered in {@link #live} for a node known to have no label; compared by identity. */
+    @SuppressFBWarnings(value = "DM_STRING_VOID_CTOR", justification = "distinct instance used as a sentinel")
+    private static final String NO_LABEL = new String();
+
+    private static final Map<WorkflowRun, NodeLabelCache> CACHES = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong fills = new AtomicLong();
+
+    /** Labels of a completed build; null until filled. */
+    private volatile Map<String, String> frozen;
+    /** Whether {@link #frozen} covers every node of the graph, so that absence means no label. */
+    private volatile boolean complete;
+    /** Labels found while the build was running, or {@link #NO_LABEL}, least recently used first. */
+    private final Map<String, String> live = new LinkedHashMap<String, String>(16, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private NodeLabelCache() {}
+
+    static @NonNull NodeLabelCache of(@NonNull WorkflowRun run) {
+        return CACHES.computeIfAbsent(run, r -> new NodeLabelCache());
+    }
+
+    /**
+     * Looks up the label of a node.
+     * @return the escaped display name of its {@link LabelAction}, or null if it has none
+     */
+    @CheckForNull String label(@NonNull FlowExecution execution, @NonNull String id) throws IOException {
+        Map<String, String> labels = frozen;
+        if (labels == null && execution.isComplete()) {
+            labels = fill(execution);
+        }
+        if (labels != null) {
+            String label = labels.get(id);
+            if (label != null || complete) {
+                hits.incrementAndGet();
+                return label;
+            }
+        } else {
+            synchronized (live) {
+                String label = live.get(id);
+                if (label != null) {
+                    hits.incrementAndGet();
+                    return label == NO_LABEL ? null : label;
+                }
+            }
+        }
+        misses.incrementAndGet();
+        FlowNode node = execution.getNode(id);
+        String label = load(node);
+        if (labels == null && node != null && (label != null || !execution.isCurrentHead(node))) {
+            synchronized (live) {
+                live.put(id, label != null ? label : NO_LABEL);
+            }
+        }
+        return label;
+    }
+
+    private synchronized Map<String, String> fill(FlowExecution execution) {
+        if (frozen != null) {
+            return frozen;
+        }
+        fills.incrementAndGet();
+        Map<String, String> labels = new HashMap<>();
+        boolean all = true;
+        for (FlowNode node : new DepthFirstScanner().allNodes(execution)) {
+            String label = load(node);
+            if (label != null) {
+                if (labels.size() >= MAX_ENTRIES) {
+                    all = false;
+                    break;
+                }
+                labels.put(node.getId(), label);
+            }
+        }
+        synchronized (live) {
+            live.clear();
+        }
+        complete = all;
+        frozen = Collections.unmodifiableMap(labels);
+        return frozen;
+    }
+
+    private static @CheckForNull String load(@CheckForNull FlowNode node) {
+        if (node == null) {
+            return null;
+        }
+        LabelAction a = node.getAction(LabelAction.class);
+        if (a == null) {
+            return null;
+        }
+        String displayName = a.getDisplayName();
+        assert displayName != null;
+        return Util.escape(displayName); // TODO is there some better way to escape for attribute values?
+    }
+
+    /** Number of label lookups answered from a cache. */
+    public static long getHits() {
+        return hits.get();
+    }
+
+    /** Number of label lookups which had to load the node. */
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    /** Number of completed builds whose labels were collected from the graph. */
+    public static long getFills() {
+        return fills.get();
+    }
+
+    @Extension public static final class Metrics implements PersistenceMetrics.Source {
+        @Override public void contribute(@NonNull JSONObject json) {
+            JSONObject console = PersistenceMetrics.section(json, "console");
+            console.put("labelCacheHits", getHits());
+            console.put("labelCacheMisses", getMisses());
+            console.put("labelCacheFills", getFills());
+        }
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.jenkinsci.plugins.workflow.job.properties;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import jenkins.model.OptionalJobProperty;
+import org.jenkinsci.Symbol;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+/**
+ * {@link OptionalJobProperty} capping the size of the log of each build of a job.
+ * Once the cap is reached, the start of the log is kept, further output is skipped,
+ * and the last part of it is appended when the build completes.
+ * Overrides any global default.
+ */
+public class LogQuotaJobProperty extends OptionalJobProperty<WorkflowJob> {
+
+    private final int maxMegabytes;
+    private int tailMegabytes = 1;
+
+    @DataBoundConstructor
+    public LogQuotaJobProperty(int maxMegabytes) {
+        this.maxMegabytes = maxMegabytes;
+    }
+
+    /** Maximum size of a build log; zero or negative for no limit. */
+    public int getMaxMegabytes() {
+        return maxMegabytes;
+    }
+
+    /** How much of the end of the skipped output to keep, counted within {@link #getMaxMegabytes}. */
+    public int getTailMegabytes() {
+        return tailMegabytes;
+    }
+
+    @DataBoundSetter public void setTailMegabytes(int tailMegabytes) {
+        this.tailMegabytes = tailMegabytes;
+    }
+
+    @Extension
+    @Symbol("logQuota")
+    public static class DescriptorImpl extends OptionalJobPropertyDescriptor {
+
+        @NonNull
+        @Override public String getDisplayName() {
+            return Messages.limit_build_log_size();
+        }
+
+    }
+
+}
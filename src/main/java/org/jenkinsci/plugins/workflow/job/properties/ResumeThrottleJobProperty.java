@@ -0,0 +1,63 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job.properties;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import jenkins.model.OptionalJobProperty;
+import org.jenkinsci.Symbol;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+/**
+ * {@link OptionalJobProperty} limiting how quickly builds of a job are resumed after the controller restarts.
+ * Applies in addition to any global limit.
+ */
+public class ResumeThrottleJobProperty extends OptionalJobProperty<WorkflowJob> {
+
+    private final double resumesPerSecond;
+
+    @DataBoundConstructor
+    public ResumeThrottleJobProperty(double resumesPerSecond) {
+        this.resumesPerSecond = resumesPerSecond;
+    }
+
+    /** Maximum rate at which builds of this job are made runnable again; zero or negative for no limit. */
+    public double getResumesPerSecond() {
+        return resumesPerSecond;
+    }
+
+    @Extension
+    @Symbol("resumeThrottle")
+    public static class DescriptorImpl extends OptionalJobPropertyDescriptor {
+
+        @NonNull
+        @Override public String getDisplayName() {
+            return Messages.throttle_resume_after_restart();
+        }
+
+    }
+
+}
@@ -27,6 +27,7 @@ package org.jenkinsci.plugins.workflow.job.views;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.Extension;
 import hudson.model.Action;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -38,6 +39,10 @@ import org.jenkinsci.plugins.workflow.graph.FlowNode;
 import org.jenkinsci.plugins.workflow.job.WorkflowRun;
 import org.jenkinsci.plugins.workflow.visualization.table.FlowNodeViewColumn;
 import org.jenkinsci.plugins.workflow.visualization.table.FlowNodeViewColumnDescriptor;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.DoNotUse;
+import org.kohsuke.stapler.StaplerRequest;
+import org.kohsuke.stapler.StaplerResponse;
 import org.kohsuke.stapler.export.Exported;
 import org.kohsuke.stapler.export.ExportedBean;
 
@@ -65,6 +70,7 @@ public final class FlowGraphAction implements Action {
         return "flowGraph";
     }
 
+    /** Every node at once; large graphs are better read a page at a time with {@link #doNodes}. */
     @Exported
     public Collection<? extends FlowNode> getNodes() {
         FlowExecution exec = run.getExecution();
@@ -80,6 +86,36 @@ public final class FlowGraphAction implements Action {
         return nodes;
     }
 
+    /**
+     * Serves a page of nodes as JSON, for example {@code nodes?start=120&limit=50&direction=backward&type=StepAtomNode&enclosing=15}.
+     * All parameters are optional; pass the returned {@code next} as {@code start} to get the following page.
+     * @see NodePage
+     */
+    @Restricted(DoNotUse.class) // for Stapler routing only
+    public void doNodes(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        FlowExecution exec = run.getExecution();
+        if (exec == null) {
+            rsp.sendError(StaplerResponse.SC_NOT_FOUND);
+            return;
+        }
+        String direction = req.getParameter("direction");
+        if (direction != null && !direction.equals("forward") && !direction.equals("backward")) {
+            rsp.sendError(StaplerResponse.SC_BAD_REQUEST, "direction must be forward or backward");
+            return;
+        }
+        int limit;
+        try {
+            String limitParam = req.getParameter("limit");
+            limit = limitParam != null ? Integer.parseInt(limitParam) : NodePage.DEFAULT_LIMIT;
+        } catch (NumberFormatException x) {
+            rsp.sendError(StaplerResponse.SC_BAD_REQUEST, x.toString());
+            return;
+        }
+        NodePage page = new NodePage(exec, req.getParameter("start"), !"backward".equals(direction), limit, req.getParameter("type"), req.getParameter("enclosing"));
+        rsp.setContentType("application/json;charset=UTF-8");
+        page.write(rsp.getWriter());
+    }
+
     @SuppressWarnings("deprecation")
     public List<FlowNodeViewColumn> getColumns() {
         return FlowNodeViewColumnDescriptor.getDefaultInstances();
@@ -0,0 +1,225 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.jenkinsci.plugins.workflow.job.views;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import jenkins.util.SystemProperties;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import net.sf.json.util.JSONUtils;
+import org.jenkinsci.plugins.workflow.actions.TimingAction;
+import org.jenkinsci.plugins.workflow.flow.FlowExecution;
+import org.jenkinsci.plugins.workflow.graph.BlockEndNode;
+import org.jenkinsci.plugins.workflow.graph.FlowGraphWalker;
+import org.jenkinsci.plugins.workflow.graph.FlowNode;
+
+/**
+ * One page of the nodes of a flow graph, written as JSON while the nodes are visited.
+ * Nodes are paged in creation order, forward or backward, after an optional cursor node.
+ * When every node ID is a number, as in Pipeline builds, nodes are looked up one ID at a time,
+ * so a page costs about as much as the nodes on it, however large the graph;
+ * otherwise the whole graph is walked first.
+ */
+final class NodePage {
+
+    static final int DEFAULT_LIMIT = 100;
+    static final int MAX_LIMIT = 1000;
+
+    /** Most nodes looked at for one page, so that a filter matching little cannot make a request walk a huge graph. */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "tests & emergency override")
+    static int MAX_SCANNED = SystemProperties.getInteger(NodePage.class.getName() + ".maxScanned", 10000);
+
+    private final FlowExecution exec;
+    private final @CheckForNull String start;
+    private final boolean forward;
+    private final int limit;
+    private final @CheckForNull String type;
+    private final @CheckForNull String enclosing;
+
+    /**
+     * @param start ID of the node after which to start, or null to start at the first node (or the last, going backward)
+     * @param forward true for oldest first
+     * @param type if set, only nodes whose class or a superclass has this simple name, such as {@code StepAtomNode} or {@code BlockStartNode}
+     * @param enclosing if set, only nodes anywhere inside the block started by the node with this ID
+     */
+    NodePage(@NonNull FlowExecution exec, @CheckForNull String start, boolean forward, int limit, @CheckForNull String type, @CheckForNull String enclosing) {
+        this.exec = exec;
+        this.start = start;
+        this.forward = forward;
+        this.limit = Math.max(1, Math.min(limit, MAX_LIMIT));
+        this.type = type;
+        this.enclosing = enclosing;
+    }
+
+    /**
+     * Writes {@code {"nodes":[…],"next":…}}, where {@code next} is the cursor for the following page,
+     * or null once there are no more matching nodes.
+     * After {@link #MAX_SCANNED} nodes the scan stops and {@code next} is where it stopped,
+     * so a filtered page may hold fewer than {@code limit} nodes, or none, and still have a {@code next}.
+     */
+    void write(@NonNull Writer w) throws IOException {
+        w.write("{\"nodes\":[");
+        String next = null;
+        String scannedTo = null;
+        int count = 0;
+        int budget = Math.max(limit, MAX_SCANNED);
+        int scanned = 0;
+        Iterator<FlowNode> it = nodes();
+        while (it.hasNext()) {
+            if (scanned++ == budget) {
+                next = scannedTo;
+                break;
+            }
+            FlowNode node = it.next();
+            if (matches(node)) {
+                if (count == limit) {
+                    next = scannedTo; // looked ahead, so there is a following page
+                    break;
+                }
+                if (count++ > 0) {
+                    w.write(',');
+                }
+                w.write(toJSON(node).toString());
+            }
+            scannedTo = node.getId();
+        }
+        w.write("],\"next\":");
+        w.write(next != null ? JSONUtils.quote(next) : "null");
+        w.write('}');
+        w.flush();
+    }
+
+    private boolean matches(FlowNode node) {
+        if (type != null) {
+            boolean found = false;
+            for (Class<?> c = node.getClass(); c != null && !found; c = c.getSuperclass()) {
+                found = c.getSimpleName().equals(type);
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return enclosing == null || node.getAllEnclosingIds().contains(enclosing);
+    }
+
+    static JSONObject toJSON(FlowNode node) {
+        JSONObject json = new JSONObject();
+        json.put("_class", node.getClass().getName());
+        json.put("id", node.getId());
+        json.put("displayName", node.getDisplayName());
+        json.put("displayFunctionName", node.getDisplayFunctionName());
+        json.put("parents", JSONArray.fromObject(node.getParentIds()));
+        String enclosingId = node.getEnclosingId();
+        if (enclosingId != null) {
+            json.put("enclosingId", enclosingId);
+        }
+        if (node instanceof BlockEndNode) {
+            json.put("startId", ((BlockEndNode<?>) node).getStartNode().getId());
+        }
+        json.put("startTime", TimingAction.getStartTime(node));
+        return json;
+    }
+
+    private Iterator<FlowNode> nodes() throws IOException {
+        int max = -1;
+        for (FlowNode head : exec.getCurrentHeads()) {
+            Integer id = number(head.getId());
+            if (id == null) {
+                return walked();
+            }
+            max = Math.max(max, id);
+        }
+        Integer from = start != null ? number(start) : null;
+        if (start != null && from == null) {
+            return Collections.emptyIterator();
+        }
+        int first = from == null ? (forward ? 0 : max) : (forward ? from + 1 : from - 1);
+        int last = max;
+        return new Iterator<FlowNode>() {
+            int i = first;
+            FlowNode next;
+            @Override public boolean hasNext() {
+                while (next == null && (forward ? i <= last : i >= 0)) {
+                    try {
+                        next = exec.getNode(Integer.toString(i));
+                    } catch (IOException x) {
+                        throw new IllegalStateException(x);
+                    }
+                    i += forward ? 1 : -1;
+                }
+                return next != null;
+            }
+            @Override public FlowNode next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                FlowNode n = next;
+                next = null;
+                return n;
+            }
+        };
+    }
+
+    /** Same order as {@link FlowGraphAction#getNodes}, for graphs with IDs which are not numbers. */
+    private Iterator<FlowNode> walked() {
+        List<FlowNode> all = new ArrayList<>();
+        for (FlowNode n : new FlowGraphWalker(exec)) {
+            all.add(n);
+        }
+        if (forward) {
+            Collections.reverse(all);
+        }
+        int from = 0;
+        if (start != null) {
+            from = all.size();
+            for (int i = 0; i < all.size(); i++) {
+                if (all.get(i).getId().equals(start)) {
+                    from = i + 1;
+                    break;
+                }
+            }
+        }
+        return all.subList(from, all.size()).iterator();
+    }
+
+    private static @CheckForNull Integer number(String id) {
+        try {
+            return Integer.valueOf(id);
+        } catch (NumberFormatException x) {
+            return null;
+        }
+    }
+
+}
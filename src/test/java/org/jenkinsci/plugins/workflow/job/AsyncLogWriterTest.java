@@ -0,0 +1,157 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.junit.After;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.BuildWatcher;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class AsyncLogWriterTest {
+
+    @Rule public JenkinsRule r = new JenkinsRule();
+    @ClassRule public static BuildWatcher buildWatcher = new BuildWatcher();
+
+    private final int bufferBytes = AsyncLogWriter.BUFFER_BYTES;
+
+    @After public void restore() {
+        AsyncLogWriter.ENABLED = false;
+        AsyncLogWriter.BUFFER_BYTES = bufferBytes;
+    }
+
+    /** A disk which takes a millisecond per write. */
+    private static final class SlowStream extends OutputStream {
+        final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        @Override public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+        @Override public synchronized void write(byte[] b, int off, int len) throws IOException {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException x) {
+                throw new IOException(x);
+            }
+            written.write(b, off, len);
+        }
+    }
+
+    @Test public void orderAndBackpressure() throws Exception {
+        AsyncLogWriter.BUFFER_BYTES = 100;
+        SlowStream slow = new SlowStream();
+        AsyncLogWriter w = new AsyncLogWriter(slow);
+        StringBuilder expected = new StringBuilder();
+        long stalls = AsyncLogWriter.getStalls();
+        for (int i = 0; i < 500; i++) {
+            String line = "line #" + i + "\n";
+            expected.append(line);
+            w.write(line.getBytes(StandardCharsets.UTF_8));
+        }
+        w.close();
+        assertThat(slow.written.toString("UTF-8"), is(expected.toString()));
+        assertThat(AsyncLogWriter.getStalls() - stalls, greaterThan(0L));
+        assertThat(AsyncLogWriter.getBuffered(), is(0L));
+    }
+
+    @Test public void orderAcrossStreams() throws Exception {
+        AsyncLogWriter.BUFFER_BYTES = 100;
+        SlowStream slow = new SlowStream();
+        AsyncLogWriter w = new AsyncLogWriter(slow);
+        OutputStream step = w.to(new OutputStream() {
+            @Override public void write(int b) throws IOException {
+                slow.write(b);
+            }
+            @Override public void write(byte[] b, int off, int len) throws IOException {
+                slow.write(b, off, len);
+            }
+        });
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            String banner = "[Pipeline] echo #" + i + "\n";
+            String output = "output #" + i + "\n";
+            expected.append(banner).append(output);
+            w.write(banner.getBytes(StandardCharsets.UTF_8));
+            step.write(output.getBytes(StandardCharsets.UTF_8));
+        }
+        w.close();
+        assertThat(slow.written.toString("UTF-8"), is(expected.toString()));
+        step.write("after\n".getBytes(StandardCharsets.UTF_8));
+        assertThat(slow.written.toString("UTF-8"), is(expected + "after\n"));
+    }
+
+    @Test public void flushedWithinInterval() throws Exception {
+        SlowStream slow = new SlowStream();
+        AsyncLogWriter w = new AsyncLogWriter(slow);
+        w.write("hello\n".getBytes(StandardCharsets.UTF_8));
+        for (int i = 0; i < 100 && slow.written.size() == 0; i++) {
+            Thread.sleep(50);
+        }
+        assertThat(slow.written.toString("UTF-8"), is("hello\n"));
+        w.close();
+    }
+
+    @Test public void build() throws Exception {
+        AsyncLogWriter.ENABLED = true;
+        WorkflowJob p = r.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition("for (int i = 0; i < 1000; i++) {echo \"line #$i\"}", true));
+        WorkflowRun b = r.buildAndAssertSuccess(p);
+        r.assertLogContains("line #0", b);
+        r.assertLogContains("line #999", b);
+        r.assertLogContains("Finished: SUCCESS", b);
+    }
+
+    @Test public void stepOutputBuffered() throws Exception {
+        AsyncLogWriter.ENABLED = true;
+        WorkflowJob p = r.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition("echo('x' * 100000)", true));
+        long written = AsyncLogWriter.getBytesWritten();
+        WorkflowRun b = r.buildAndAssertSuccess(p);
+        r.assertLogContains("x".repeat(100000), b);
+        assertThat(AsyncLogWriter.getBytesWritten() - written, greaterThan(100000L));
+    }
+
+    @Test public void bannersPrecedeStepOutput() throws Exception {
+        AsyncLogWriter.ENABLED = true;
+        WorkflowJob p = r.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition("for (int i = 0; i < 20; i++) {echo \"line #$i\"}", true));
+        WorkflowRun b = r.buildAndAssertSuccess(p);
+        String log = JenkinsRule.getLog(b);
+        for (int i = 0; i < 20; i++) {
+            assertThat(log, containsString("[Pipeline] echo\nline #" + i + "\n"));
+        }
+    }
+
+}
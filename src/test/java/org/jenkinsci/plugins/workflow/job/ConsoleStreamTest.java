@@ -0,0 +1,127 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.test.steps.SemaphoreStep;
+import org.junit.After;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.BuildWatcher;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class ConsoleStreamTest {
+
+    @Rule public JenkinsRule r = new JenkinsRule();
+    @ClassRule public static BuildWatcher buildWatcher = new BuildWatcher();
+
+    private final long pollMillis = ConsoleStream.POLL_MILLIS;
+    private final int queue = ConsoleStream.QUEUE;
+
+    @After public void restore() {
+        ConsoleStream.POLL_MILLIS = pollMillis;
+        ConsoleStream.QUEUE = queue;
+    }
+
+    private BufferedReader open(WorkflowRun b, String query) throws Exception {
+        HttpURLConnection c = (HttpURLConnection) new URL(r.getURL(), b.getUrl() + "consoleStream" + query).openConnection();
+        assertThat(c.getResponseCode(), is(200));
+        assertThat(c.getContentType(), containsString("text/event-stream"));
+        return new BufferedReader(new InputStreamReader(c.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    /** Reads events until one contains {@code text}, returning everything read. */
+    private static String readUntil(BufferedReader reader, String text) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            sb.append(line).append('\n');
+            if (line.contains(text)) {
+                break;
+            }
+        }
+        return sb.toString();
+    }
+
+    @Test public void sharedTail() throws Exception {
+        ConsoleStream.POLL_MILLIS = 50;
+        WorkflowJob p = r.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition("echo 'before'; semaphore 'wait'; echo 'after'", true));
+        WorkflowRun b = p.scheduleBuild2(0).waitForStart();
+        SemaphoreStep.waitForStart("wait/1", b);
+        long events = ConsoleStream.getEvents();
+        try (BufferedReader live = open(b, ""); BufferedReader full = open(b, "?start=0")) {
+            assertThat(readUntil(full, "before"), containsString("data: before"));
+            SemaphoreStep.success("wait/1", null);
+            String liveText = readUntil(live, "event: complete");
+            assertThat(liveText, containsString("data: after"));
+            assertThat(liveText, not(containsString("data: before")));
+            assertThat(readUntil(full, "event: complete"), containsString("data: after"));
+        }
+        r.assertBuildStatusSuccess(r.waitForCompletion(b));
+        while (ConsoleStream.getSubscribers() > 0) {
+            Thread.sleep(100); // closed by a delivery thread just after the last event
+        }
+        assertThat(ConsoleStream.getEvents() > events, is(true));
+    }
+
+    @Test public void completedBuild() throws Exception {
+        WorkflowJob p = r.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition("echo 'hello'", true));
+        WorkflowRun b = r.buildAndAssertSuccess(p);
+        try (BufferedReader reader = open(b, "?start=0")) {
+            String text = readUntil(reader, "event: complete");
+            assertThat(text, containsString("data: hello"));
+        }
+    }
+
+    @Test public void slowSubscriberDropped() {
+        ConsoleStream.QUEUE = 3;
+        long dropped = ConsoleStream.getDropped();
+        ConsoleStream.Subscriber s = new ConsoleStream.Subscriber();
+        for (int i = 0; i < 10; i++) {
+            s.offer(new ConsoleStream.Event(i, "line #" + i, null));
+        }
+        assertThat(s.dropped, is(true));
+        assertThat(ConsoleStream.getDropped() - dropped, is(1L));
+        ConsoleStream.Event last = null;
+        for (ConsoleStream.Event e = s.queue.poll(); e != null; e = s.queue.poll()) {
+            last = e;
+        }
+        assertThat(last, is(ConsoleStream.DROPPED));
+    }
+
+}
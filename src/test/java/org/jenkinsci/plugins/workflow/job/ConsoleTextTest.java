@@ -0,0 +1,145 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebResponse;
+import java.io.File;
+import java.net.URL;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.test.steps.SemaphoreStep;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.BuildWatcher;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class ConsoleTextTest {
+
+    @Rule public JenkinsRule r = new JenkinsRule();
+    @ClassRule public static BuildWatcher buildWatcher = new BuildWatcher();
+
+    private WebResponse get(JenkinsRule.WebClient wc, WorkflowRun b, String... headers) throws Exception {
+        WebRequest req = new WebRequest(new URL(r.getURL(), b.getUrl() + "consoleText"));
+        for (int i = 0; i < headers.length; i += 2) {
+            req.setAdditionalHeader(headers[i], headers[i + 1]);
+        }
+        return wc.loadWebResponse(req);
+    }
+
+    @Test public void parse() {
+        assertThat(ConsoleText.parse("bytes=0-9"), is(new long[] {0, 9}));
+        assertThat(ConsoleText.parse("bytes=100-"), is(new long[] {100, -1}));
+        assertThat(ConsoleText.parse("bytes=-50"), is(new long[] {-1, 50}));
+        assertThat(ConsoleText.parse("bytes=0-1,5-9"), nullValue());
+        assertThat(ConsoleText.parse("bytes=9-0"), nullValue());
+        assertThat(ConsoleText.parse("lines=1-2"), nullValue());
+        assertThat(ConsoleText.parse("bytes=x-"), nullValue());
+    }
+
+    @Test public void acceptsGzip() {
+        assertThat(ConsoleText.acceptsGzip("gzip, deflate"), is(true));
+        assertThat(ConsoleText.acceptsGzip("deflate;q=1, GZIP;q=0.5"), is(true));
+        assertThat(ConsoleText.acceptsGzip("x-gzip"), is(true));
+        assertThat(ConsoleText.acceptsGzip("*"), is(true));
+        assertThat(ConsoleText.acceptsGzip("gzip;q=0"), is(false));
+        assertThat(ConsoleText.acceptsGzip("gzip; q=0.0, *"), is(false));
+        assertThat(ConsoleText.acceptsGzip("x-gzip-foo, identity"), is(false));
+        assertThat(ConsoleText.acceptsGzip("*;q=0"), is(false));
+        assertThat(ConsoleText.acceptsGzip(null), is(false));
+    }
+
+    @Test public void completed() throws Exception {
+        WorkflowJob p = r.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition("for (int i = 0; i < 50; i++) {echo \"line #$i\"}", true));
+        WorkflowRun b = r.buildAndAssertSuccess(p);
+        while (!new File(b.getRootDir(), ConsoleText.FILE_NAME).isFile()) {
+            Thread.sleep(100); // plain length computed in the background
+        }
+        JenkinsRule.WebClient wc = r.createWebClient();
+        wc.setThrowExceptionOnFailingStatusCode(false);
+        WebResponse all = get(wc, b, "Accept-Encoding", "gzip");
+        assertThat(all.getStatusCode(), is(200));
+        String text = all.getContentAsString();
+        String etag = all.getResponseHeaderValue("ETag");
+        assertThat(etag, notNullValue());
+        assertThat(all.getResponseHeaderValue("Accept-Ranges"), is("bytes"));
+
+        WebResponse part = get(wc, b, "Range", "bytes=10-19");
+        assertThat(part.getStatusCode(), is(206));
+        assertThat(part.getContentAsString(), is(text.substring(10, 20)));
+        assertThat(part.getResponseHeaderValue("Content-Range"), is("bytes 10-19/" + text.length()));
+        assertThat(part.getResponseHeaderValue("Content-Encoding"), nullValue());
+        String identity = part.getResponseHeaderValue("ETag");
+        assertThat("gzipped and identity representations are tagged differently", identity, not(etag));
+
+        part = get(wc, b, "Range", "bytes=100-");
+        assertThat(part.getStatusCode(), is(206));
+        assertThat(part.getContentAsString(), is(text.substring(100)));
+
+        part = get(wc, b, "Range", "bytes=-30");
+        assertThat(part.getStatusCode(), is(206));
+        assertThat(part.getContentAsString(), is(text.substring(text.length() - 30)));
+
+        part = get(wc, b, "Range", "bytes=" + text.length() + "-");
+        assertThat(part.getStatusCode(), is(416));
+        assertThat(part.getResponseHeaderValue("Content-Range"), is("bytes */" + text.length()));
+
+        assertThat(get(wc, b, "If-None-Match", etag).getStatusCode(), is(304));
+        assertThat(get(wc, b, "If-None-Match", "\"other\"").getStatusCode(), is(200));
+        assertThat(get(wc, b, "Range", "bytes=10-19", "If-Range", identity).getStatusCode(), is(206));
+        assertThat("a gzipped tag does not validate a range", get(wc, b, "Range", "bytes=10-19", "If-Range", etag).getStatusCode(), is(200));
+        WebResponse stale = get(wc, b, "Range", "bytes=10-19", "If-Range", "\"other\"");
+        assertThat(stale.getStatusCode(), is(200));
+        assertThat(stale.getContentAsString(), is(text));
+    }
+
+    @Test public void running() throws Exception {
+        WorkflowJob p = r.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition("echo 'first line'; semaphore 'wait'; echo 'second line'", true));
+        WorkflowRun b = p.scheduleBuild2(0).waitForStart();
+        SemaphoreStep.waitForStart("wait/1", b);
+        JenkinsRule.WebClient wc = r.createWebClient();
+        WebResponse all = get(wc, b);
+        assertThat(all.getResponseHeaderValue("ETag"), nullValue());
+        String text = all.getContentAsString();
+        WebResponse part = get(wc, b, "Range", "bytes=5-");
+        assertThat(part.getStatusCode(), is(206));
+        assertThat(part.getContentAsString(), is(text.substring(5)));
+        WebResponse suffix = get(wc, b, "Range", "bytes=-4");
+        assertThat(suffix.getStatusCode(), is(206));
+        assertThat(suffix.getResponseHeaderValue("Content-Range"), is("bytes " + (text.length() - 4) + "-" + (text.length() - 1) + "/" + text.length()));
+        assertThat(suffix.getContentAsString(), is(text.substring(text.length() - 4)));
+        SemaphoreStep.success("wait/1", null);
+        r.assertBuildStatusSuccess(r.waitForCompletion(b));
+    }
+
+}
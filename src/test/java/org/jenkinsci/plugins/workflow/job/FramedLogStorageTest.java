@@ -0,0 +1,148 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.gargoylesoftware.htmlunit.WebResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.apache.commons.io.IOUtils;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.log.LogStorage;
+import org.junit.After;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.jvnet.hudson.test.BuildWatcher;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class FramedLogStorageTest {
+
+    @Rule public JenkinsRule r = new JenkinsRule();
+    @ClassRule public static BuildWatcher buildWatcher = new BuildWatcher();
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final int frameSize = FramedLogStorage.FRAME_SIZE;
+    private final String codec = FramedLogStorage.CODEC;
+
+    @After public void restore() {
+        FramedLogStorage.FRAME_SIZE = frameSize;
+        FramedLogStorage.CODEC = codec;
+    }
+
+    @Test public void frames() throws Exception {
+        for (FramedLog.Codec c : FramedLog.Codec.values()) {
+            File dir = tmp.newFolder();
+            byte[] data = new byte[10_000];
+            Random random = new Random(c.ordinal());
+            for (int i = 0; i < data.length; i++) {
+                data[i] = (byte) ('a' + random.nextInt(4));
+            }
+            Files.write(new File(dir, "log").toPath(), data);
+            FramedLog.compress(dir, c, 1000);
+            assertFalse(new File(dir, "log").exists());
+            FramedLog log = FramedLog.open(dir);
+            assertThat(log.length(), is((long) data.length));
+            try (InputStream is = log.stream()) {
+                assertThat(IOUtils.toByteArray(is), is(data));
+            }
+            for (int[] range : new int[][] {{0, 10_000}, {0, 1}, {999, 1001}, {1500, 1600}, {9999, 20_000}, {2000, 2000}}) {
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                long read = FramedLog.getFramesRead();
+                log.copy(range[0], range[1], baos);
+                int to = Math.min(range[1], data.length);
+                assertThat(baos.toByteArray(), is(Arrays.copyOfRange(data, range[0], to)));
+                assertThat(FramedLog.getFramesRead() - read, is((long) (to <= range[0] ? 0 : (to - 1) / 1000 - range[0] / 1000 + 1)));
+            }
+        }
+    }
+
+    @Test public void compressedBuild() throws Exception {
+        FramedLogStorage.FRAME_SIZE = 256;
+        FramedLogStorage.CODEC = "fast";
+        WorkflowJob p = r.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition("parallel a: {for (int i = 0; i < 20; i++) {echo \"a #$i\"}}, b: {for (int i = 0; i < 20; i++) {echo \"b #$i\"}}", true));
+        WorkflowRun b = r.buildAndAssertSuccess(p);
+        String text = b.getLog();
+        List<String> tail = b.getLog(5);
+        StringWriter html = new StringWriter();
+        b.getLogText().writeHtmlTo(0, html);
+        JenkinsRule.WebClient wc = r.createWebClient();
+        String consoleText = wc.goTo(b.getUrl() + "consoleText", "text/plain").getWebResponse().getContentAsString();
+        String nodeLog = wc.goTo(b.getUrl() + "nodeLog?stage=a", "text/plain").getWebResponse().getContentAsString();
+        WebResponse progressive = wc.goTo(b.getUrl() + "logText/progressiveText?start=10", "text/plain").getWebResponse();
+        long size = new File(b.getRootDir(), "log").length();
+
+        assertTrue(FramedLogStorage.compress(b));
+        assertThat(LogStorage.of(b.asFlowExecutionOwner()), instanceOf(FramedLogStorage.class));
+        assertThat(Files.size(new File(b.getRootDir(), FramedLog.FRAMES_FILE).toPath()), lessThan(size));
+        assertThat(b.getLog(), is(text));
+        assertThat(b.getLog(5), is(tail));
+        StringWriter html2 = new StringWriter();
+        b.getLogText().writeHtmlTo(0, html2);
+        assertThat(html2.toString(), containsString("<span class=\"pipeline-node-"));
+        assertThat(html2.toString().replaceAll("<[^>]*>", ""), is(html.toString().replaceAll("<[^>]*>", "")));
+        assertThat(wc.goTo(b.getUrl() + "consoleText", "text/plain").getWebResponse().getContentAsString(), is(consoleText));
+        assertThat(wc.goTo(b.getUrl() + "nodeLog?stage=a", "text/plain").getWebResponse().getContentAsString(), is(nodeLog));
+        WebResponse progressive2 = wc.goTo(b.getUrl() + "logText/progressiveText?start=10", "text/plain").getWebResponse();
+        assertThat(progressive2.getContentAsString(), is(progressive.getContentAsString()));
+        assertThat(progressive2.getResponseHeaderValue("X-Text-Size"), is(progressive.getResponseHeaderValue("X-Text-Size")));
+        assertThat(wc.goTo(b.getUrl() + "console").getWebResponse().getContentAsString(), containsString("b #19"));
+        assertFalse(FramedLogStorage.compress(b));
+    }
+
+    @Test public void migration() throws Exception {
+        WorkflowJob p = r.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition("echo 'hello'", true));
+        WorkflowRun b1 = r.buildAndAssertSuccess(p);
+        WorkflowRun b2 = r.buildAndAssertSuccess(p);
+        boolean migrate = FramedLogStorage.MIGRATE;
+        FramedLogStorage.MIGRATE = true;
+        try {
+            new FramedLogStorage.Migration().execute(r.createTaskListener());
+        } finally {
+            FramedLogStorage.MIGRATE = migrate;
+        }
+        for (WorkflowRun b : Arrays.asList(b1, b2)) {
+            assertTrue(FramedLog.exists(b.getRootDir()));
+            r.assertLogContains("hello", b);
+        }
+    }
+
+}
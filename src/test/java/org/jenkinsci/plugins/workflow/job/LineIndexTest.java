@@ -0,0 +1,87 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import com.gargoylesoftware.htmlunit.WebResponse;
+import hudson.console.ConsoleNote;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.junit.After;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.BuildWatcher;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class LineIndexTest {
+
+    @ClassRule public static BuildWatcher buildWatcher = new BuildWatcher();
+    @Rule public JenkinsRule r = new JenkinsRule();
+
+    private final int originalInterval = LineIndex.INTERVAL;
+
+    @After public void restore() {
+        LineIndex.INTERVAL = originalInterval;
+    }
+
+    @Test public void pages() throws Exception {
+        LineIndex.INTERVAL = 100;
+        WorkflowJob p = r.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition("@NonCPS def giant() {(0..2499).collect {/line $it/}.join('\\n')}; echo giant()", true));
+        WorkflowRun b = r.buildAndAssertSuccess(p);
+        List<String> all = Arrays.asList(JenkinsRule.getLog(b).split("\n"));
+        int first = all.indexOf("line 0");
+        WebResponse rsp = r.createWebClient().goTo(b.getUrl() + "logLines?from=" + (first + 1234) + "&count=3", "text/plain").getWebResponse();
+        assertThat(rsp.getContentAsString(), is("line 1234\nline 1235\nline 1236\n"));
+        assertThat(rsp.getResponseHeaderValue("X-Total-Lines"), is(Integer.toString(all.size())));
+        assertThat(new File(b.getRootDir(), LineIndex.FILE_NAME).isFile(), is(true));
+        // past the end
+        assertThat(r.createWebClient().goTo(b.getUrl() + "logLines?from=100000", "text/plain").getWebResponse().getContentAsString(), is(""));
+    }
+
+    @Test public void rebuiltForOldBuilds() throws Exception {
+        LineIndex.INTERVAL = 10;
+        WorkflowJob p = r.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition("for (int i = 0; i < 50; i++) {echo(/step $i/)}", true));
+        WorkflowRun b = r.buildAndAssertSuccess(p);
+        File file = new File(b.getRootDir(), LineIndex.FILE_NAME);
+        while (!file.isFile()) {
+            Thread.sleep(100); // indexed in the background on completion
+        }
+        assertThat(file.delete(), is(true));
+        LineIndex index = new LineIndex(b.getRootDir());
+        List<String> lines = index.lines(b.getLogText()::writeRawLogTo, StandardCharsets.UTF_8, 0, Integer.MAX_VALUE);
+        assertThat(lines, is(ConsoleNote.removeNotes(Arrays.asList(JenkinsRule.getLog(b).split("\n")))));
+        assertThat(file.isFile(), is(true));
+        assertThat(index.getLineCount(), is((long) lines.size()));
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.After;
+import org.junit.Test;
+
+public class LogInputStreamTest {
+
+    private static final int CHUNK = 1024;
+    private static final int CAPACITY = 4;
+    private static final int WRITE = 300;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @After public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** Log of {@code total} bytes, {@code b[i] == (byte) i}, served as a few growing increments like a running build. */
+    private static WorkflowRun.WriteMethod fakeLog(long total, AtomicLong produced) {
+        return (start, os) -> {
+            long end = Math.min(total, start + total / 3 + 1);
+            byte[] buf = new byte[WRITE];
+            for (long pos = start; pos < end; ) {
+                int n = (int) Math.min(WRITE, end - pos);
+                for (int i = 0; i < n; i++) {
+                    buf[i] = (byte) (pos + i);
+                }
+                os.write(buf, 0, n);
+                pos += n;
+                produced.set(pos);
+            }
+            return end;
+        };
+    }
+
+    @Test public void boundedMemoryForLargeLog() throws Exception {
+        long total = 64L * 1024 * 1024;
+        AtomicLong produced = new AtomicLong();
+        long maxAhead = 0;
+        long read = 0;
+        try (InputStream is = new LogInputStream(fakeLog(total, produced), executor, CHUNK, CAPACITY)) {
+            byte[] buf = new byte[777];
+            int n;
+            while ((n = is.read(buf)) != -1) {
+                for (int i = 0; i < n; i++) {
+                    if (buf[i] != (byte) (read + i)) {
+                        throw new AssertionError("mismatch at " + (read + i));
+                    }
+                }
+                read += n;
+                maxAhead = Math.max(maxAhead, produced.get() - read);
+            }
+        }
+        assertThat(read, is(total));
+        // queue, the chunk being read, the chunk being filled, and one write in flight
+        assertThat(maxAhead, lessThanOrEqualTo((long) (CAPACITY + 2) * CHUNK + WRITE));
+    }
+
+    @Test public void closeStopsProducer() throws Exception {
+        AtomicLong produced = new AtomicLong();
+        InputStream is = new LogInputStream(fakeLog(Long.MAX_VALUE / 2, produced), executor, CHUNK, CAPACITY);
+        assertThat(is.read() >= 0, is(true));
+        is.close();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS), is(true));
+    }
+
+    @Test public void emptyLog() throws Exception {
+        try (InputStream is = new LogInputStream((start, os) -> start, executor, CHUNK, CAPACITY)) {
+            assertThat(is.read(), is(-1));
+        }
+    }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.jenkinsci.plugins.workflow.job;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.properties.LogQuotaJobProperty;
+import org.junit.After;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.BuildWatcher;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class LogQuotaTest {
+
+    @Rule public JenkinsRule r = new JenkinsRule();
+    @ClassRule public static BuildWatcher buildWatcher = new BuildWatcher();
+
+    private final long maxBytes = LogQuota.MAX_BYTES;
+    private final long tailBytes = LogQuota.TAIL_BYTES;
+
+    @After public void restore() {
+        LogQuota.MAX_BYTES = maxBytes;
+        LogQuota.TAIL_BYTES = tailBytes;
+    }
+
+    private static String write(LogQuota quota, int lines) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < lines; i++) {
+            byte[] line = String.format("line %02d\n", i).getBytes(StandardCharsets.UTF_8);
+            quota.write(out, line, 0, line.length);
+        }
+        quota.finish(out);
+        return out.toString("UTF-8");
+    }
+
+    @Test public void headAndTail() throws Exception {
+        LogQuota.Retention retention = new LogQuota.Retention(100, 30);
+        String log = write(new LogQuota(retention, 0), 50);
+        assertThat(log, startsWith("line 00\nline 01\nline 02\nline 03\nline 04\nline 05\nline 06\nline 07\n[Log size limit of "));
+        assertThat(log, not(containsString("line 08")));
+        assertThat(log, containsString("[Skipped 312 B of log output]\n"));
+        assertThat(log, endsWith("]\nline 47\nline 48\nline 49\n"));
+        assertThat(retention.getTotalBytes(), is(400L));
+        assertThat(retention.getSkippedBytes(), is(312L));
+        assertThat(retention.isTruncated(), is(true));
+    }
+
+    @Test public void underLimit() throws Exception {
+        LogQuota.Retention retention = new LogQuota.Retention(100, 30);
+        assertThat(write(new LogQuota(retention, 0), 5), is("line 00\nline 01\nline 02\nline 03\nline 04\n"));
+        assertThat(retention.getSkippedBytes(), is(0L));
+        assertThat(retention.isTruncated(), is(false));
+    }
+
+    @Test public void jobProperty() throws Exception {
+        WorkflowJob p = r.createProject(WorkflowJob.class, "p");
+        assertThat(LogQuota.retentionFor(p), nullValue());
+        LogQuota.MAX_BYTES = 1000;
+        assertThat(LogQuota.retentionFor(p).getTailBytes(), is(500L));
+        LogQuotaJobProperty property = new LogQuotaJobProperty(10);
+        property.setTailMegabytes(2);
+        p.addProperty(property);
+        LogQuota.Retention retention = LogQuota.retentionFor(p);
+        assertThat(retention, notNullValue());
+        assertThat(retention.getLimitBytes(), is(10L * 1024 * 1024));
+        assertThat(retention.getHeadBytes(), is(8L * 1024 * 1024));
+    }
+
+    @Test public void build() throws Exception {
+        LogQuota.MAX_BYTES = 4000;
+        LogQuota.TAIL_BYTES = 1000;
+        WorkflowJob p = r.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition("def s = ''; for (int i = 0; i < 1000; i++) {s += \"line #$i\\n\"}; echo s", true));
+        WorkflowRun b = r.buildAndAssertSuccess(p);
+        String log = JenkinsRule.getLog(b);
+        assertThat(log, containsString("line #0\n"));
+        assertThat(log, not(containsString("line #500\n")));
+        assertThat(log, containsString("line #999\n"));
+        assertThat(log, containsString("[Log size limit of "));
+        assertThat(log, containsString("[Skipped "));
+        assertThat(log, containsString("Finished: SUCCESS"));
+        LogQuota.Retention retention = b.getAction(LogQuota.Retention.class);
+        assertThat(retention, notNullValue());
+        assertThat(retention.getSkippedBytes(), greaterThan(0L));
+        assertThat(b.getLogText().length(), not(greaterThan(4000L + 1000)));
+        String json = r.createWebClient().goTo(b.getUrl() + "api/json?tree=actions[limitBytes,skippedBytes]", "application/json").getWebResponse().getContentAsString();
+        assertThat(json, containsString("\"limitBytes\":4000"));
+    }
+
+}
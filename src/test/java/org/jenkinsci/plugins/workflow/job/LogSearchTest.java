@@ -0,0 +1,116 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import com.gargoylesoftware.htmlunit.HttpMethod;
+import com.gargoylesoftware.htmlunit.WebRequest;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import net.sf.json.JSONObject;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.junit.After;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.BuildWatcher;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class LogSearchTest {
+
+    @Rule public JenkinsRule r = new JenkinsRule();
+    @ClassRule public static BuildWatcher buildWatcher = new BuildWatcher();
+
+    private final long timeoutMillis = LogSearch.TIMEOUT_MILLIS;
+
+    @After public void restore() {
+        LogSearch.TIMEOUT_MILLIS = timeoutMillis;
+    }
+
+    @Test public void search() throws Exception {
+        WorkflowJob p = r.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition("echo 'all good'; if (currentBuild.number % 2 == 0) {echo 'Connection refused by host'}", true));
+        for (int i = 0; i < 6; i++) {
+            r.buildAndAssertSuccess(p);
+        }
+        List<JSONObject> matches = search(p, "q=Connection+refused&builds=5");
+        List<Integer> builds = new ArrayList<>();
+        for (JSONObject match : matches) {
+            builds.add(match.getInt("build"));
+            assertThat(match.getString("text"), is("Connection refused by host"));
+            String line = p.getBuildByNumber(match.getInt("build")).getLog(Integer.MAX_VALUE).get(match.getInt("line") - 1);
+            assertThat(line, is("Connection refused by host"));
+        }
+        assertThat(builds, containsInAnyOrder(2, 4, 6));
+        assertThat(search(p, "q=refused&limit=2").size(), is(2));
+        assertThat(post(p, "q=Conn.*%5Cbhost&regex=true").size(), is(3));
+        assertThat(search(p, "q=pipeline-new-node").size(), is(0)); // inside console notes only
+        JenkinsRule.WebClient wc = r.createWebClient();
+        wc.setThrowExceptionOnFailingStatusCode(false);
+        assertThat(wc.goTo(p.getUrl() + "searchLogs?q=Conn&regex=true", null).getWebResponse().getStatusCode(), is(405));
+        WebRequest req = new WebRequest(new URL(r.getURL(), p.getUrl() + "searchLogs?q=(&regex=true"), HttpMethod.POST);
+        wc.addCrumb(req);
+        assertThat(wc.getPage(req).getWebResponse().getStatusCode(), is(400));
+    }
+
+    @Test public void pathologicalPattern() throws Exception {
+        LogSearch.TIMEOUT_MILLIS = 500;
+        WorkflowJob p = r.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition("echo('a' * 40 + 'c')", true));
+        WorkflowRun b = r.buildAndAssertSuccess(p);
+        long start = System.nanoTime();
+        boolean complete = new LogSearch("(a+)+b", true).search(Arrays.asList(b, b, b, b, b, b), 10, match -> {});
+        assertThat(complete, is(false));
+        assertThat((System.nanoTime() - start) / 1_000_000, lessThan(10_000L));
+    }
+
+    private List<JSONObject> search(WorkflowJob p, String query) throws Exception {
+        return parse(r.createWebClient().goTo(p.getUrl() + "searchLogs?" + query, "application/x-ndjson").getWebResponse().getContentAsString());
+    }
+
+    private List<JSONObject> post(WorkflowJob p, String query) throws Exception {
+        JenkinsRule.WebClient wc = r.createWebClient();
+        WebRequest req = new WebRequest(new URL(r.getURL(), p.getUrl() + "searchLogs?" + query), HttpMethod.POST);
+        wc.addCrumb(req);
+        return parse(wc.getPage(req).getWebResponse().getContentAsString());
+    }
+
+    private static List<JSONObject> parse(String body) {
+        List<JSONObject> matches = new ArrayList<>();
+        for (String line : Arrays.asList(body.split("\n"))) {
+            if (!line.isEmpty()) {
+                matches.add(JSONObject.fromObject(line));
+            }
+        }
+        return matches;
+    }
+
+}
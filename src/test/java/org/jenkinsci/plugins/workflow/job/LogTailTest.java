@@ -0,0 +1,136 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.startsWith;
+
+import hudson.console.ConsoleNote;
+import hudson.console.HyperlinkNote;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+
+public class LogTailTest {
+
+    private static WorkflowRun.WriteMethod raw(byte[] log, AtomicLong served) {
+        return (start, os) -> {
+            for (long pos = start; pos < log.length; pos += 1000) {
+                int n = (int) Math.min(1000, log.length - pos);
+                served.addAndGet(n);
+                os.write(log, (int) pos, n);
+            }
+            return log.length;
+        };
+    }
+
+    private static List<String> tail(String log, int maxLines) throws IOException {
+        byte[] bytes = log.getBytes(StandardCharsets.UTF_8);
+        return LogTail.tail(bytes.length, raw(bytes, new AtomicLong()), StandardCharsets.UTF_8, maxLines);
+    }
+
+    /** The previous implementation, reading every line. */
+    private static List<String> naive(String log, int maxLines) throws IOException {
+        List<String> lines = new ArrayList<>();
+        if (maxLines == 0) {
+            return lines;
+        }
+        try (BufferedReader r = new BufferedReader(new StringReader(log))) {
+            for (String line = r.readLine(); line != null; line = r.readLine()) {
+                lines.add(line);
+            }
+        }
+        if (lines.size() > maxLines) {
+            lines = new ArrayList<>(lines.subList(lines.size() - maxLines, lines.size()));
+            lines.set(0, "[...truncated");
+        }
+        return ConsoleNote.removeNotes(lines);
+    }
+
+    private static void assertSameAsNaive(String log, int maxLines) throws IOException {
+        List<String> expected = naive(log, maxLines);
+        List<String> actual = tail(log, maxLines);
+        assertThat(log + " / " + maxLines, actual.size(), is(expected.size()));
+        for (int i = 0; i < expected.size(); i++) {
+            if (i == 0 && expected.get(0).equals("[...truncated")) {
+                assertThat(actual.get(0), startsWith("[...truncated "));
+            } else {
+                assertThat(log + " / " + maxLines, actual.get(i), is(expected.get(i)));
+            }
+        }
+    }
+
+    @Test public void edgeCases() throws Exception {
+        for (String log : new String[] {"", "\n", "\n\n", "a", "a\n", "a\nb", "a\nb\n", "a\r\nb\r\n", "a\rb\r", "a\n\nb\n\n", "\r\n\r\n"}) {
+            for (int maxLines = 0; maxLines < 5; maxLines++) {
+                assertSameAsNaive(log, maxLines);
+            }
+        }
+    }
+
+    @Test public void lineStart() throws Exception {
+        byte[] log = ("first\n" + "x".repeat(3 * LogTail.BLOCK_SIZE) + "\nlast").getBytes(StandardCharsets.UTF_8);
+        assertThat(LogTail.lineStart(log.length, raw(log, new AtomicLong())), is((long) log.length - 4));
+        assertThat(LogTail.lineStart(log.length - 5, raw(log, new AtomicLong())), is(6L));
+        assertThat(LogTail.lineStart(6, raw(log, new AtomicLong())), is(6L));
+        assertThat(LogTail.lineStart(5, raw(log, new AtomicLong())), is(0L));
+        assertThat(LogTail.lineStart(0, raw(log, new AtomicLong())), is(0L));
+    }
+
+    @Test public void randomLogs() throws Exception {
+        Random random = new Random(42);
+        String[] pieces = {"x", "hello world ", "\n", "\r\n", "\r", "é", HyperlinkNote.encodeTo("/job/x/", "link"), "\n\n"};
+        for (int round = 0; round < 200; round++) {
+            StringBuilder log = new StringBuilder();
+            int size = random.nextInt(round < 100 ? 50 : 5000);
+            for (int i = 0; i < size; i++) {
+                log.append(pieces[random.nextInt(pieces.length)]);
+            }
+            assertSameAsNaive(log.toString(), 1 + random.nextInt(30));
+        }
+    }
+
+    @Test public void costDependsOnLinesNotLogSize() throws Exception {
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; i < 1_000_000; i++) {
+            log.append("line ").append(i).append('\n');
+        }
+        byte[] bytes = log.toString().getBytes(StandardCharsets.UTF_8);
+        AtomicLong served = new AtomicLong();
+        List<String> lines = LogTail.tail(bytes.length, raw(bytes, served), StandardCharsets.UTF_8, 100);
+        assertThat(lines.size(), is(100));
+        assertThat(lines.get(99), is("line 999999"));
+        assertThat(served.get(), lessThan(4L * LogTail.BLOCK_SIZE));
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.graph.FlowNode;
+import org.jenkinsci.plugins.workflow.graphanalysis.DepthFirstScanner;
+import org.jenkinsci.plugins.workflow.graphanalysis.NodeStepTypePredicate;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.BuildWatcher;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class NodeLogsTest {
+
+    @ClassRule public static BuildWatcher buildWatcher = new BuildWatcher();
+    @Rule public JenkinsRule r = new JenkinsRule();
+
+    @Test public void stagesAndSteps() throws Exception {
+        WorkflowJob p = r.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition(
+            "stage('one') {echo 'in one'}\n" +
+            "stage('two') {echo 'in two'; parallel a: {echo 'in a'}, b: {echo 'in b'}}\n" +
+            "echo 'at the end'", true));
+        WorkflowRun b = r.buildAndAssertSuccess(p);
+        JenkinsRule.WebClient wc = r.createWebClient();
+        String two = wc.goTo(b.getUrl() + "nodeLog?stage=two", "text/plain").getWebResponse().getContentAsString();
+        assertThat(two, containsString("in two"));
+        assertThat(two, containsString("in a"));
+        assertThat(two, containsString("in b"));
+        assertThat(two, not(containsString("in one")));
+        assertThat(two, not(containsString("at the end")));
+        assertThat(two.indexOf("in two") < two.indexOf("in a"), is(true));
+        String a = wc.goTo(b.getUrl() + "nodeLog?stage=a", "text/plain").getWebResponse().getContentAsString();
+        assertThat(a, containsString("in a"));
+        assertThat(a, not(containsString("in b")));
+        FlowNode last = new DepthFirstScanner().findFirstMatch(b.getExecution(), new NodeStepTypePredicate("echo"));
+        assertThat(wc.goTo(b.getUrl() + "nodeLog?id=" + last.getId(), "text/plain").getWebResponse().getContentAsString(), is("at the end\n"));
+        wc.setThrowExceptionOnFailingStatusCode(false);
+        assertThat(wc.goTo(b.getUrl() + "nodeLog?stage=three", null).getWebResponse().getStatusCode(), is(404));
+    }
+
+}
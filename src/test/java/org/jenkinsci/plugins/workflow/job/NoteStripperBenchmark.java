@@ -0,0 +1,94 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.jenkinsci.plugins.workflow.job;
+
+import hudson.console.ConsoleNote;
+import hudson.console.HyperlinkNote;
+import hudson.console.PlainTextConsoleOutputStream;
+import hudson.util.NullStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares {@link NoteStripper} with decoding lines and calling {@link ConsoleNote#removeNotes},
+ * and with {@link PlainTextConsoleOutputStream}, on a log where every other line has a note.
+ * Allocation is reported by the GC profiler in {@link BenchmarkRunner}.
+ */
+@JmhBenchmark
+public class NoteStripperBenchmark {
+
+    public static class JenkinsState extends JmhBenchmarkState {
+
+        byte[] log;
+
+        @Override public void setup() throws Exception {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            for (int i = 0; i < 10_000; i++) {
+                String line = i % 2 == 0 ? "[Pipeline] " + HyperlinkNote.encodeTo("/job/p/1/execution/node/" + i + "/", "echo") : "some step output, line " + i;
+                baos.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+            log = baos.toByteArray();
+        }
+
+    }
+
+    /** Writes in blocks, as log storage does. */
+    private static void copy(byte[] log, OutputStream out) throws IOException {
+        for (int i = 0; i < log.length; i += 8192) {
+            out.write(log, i, Math.min(8192, log.length - i));
+        }
+    }
+
+    @Benchmark public void removeNotes(JenkinsState state, Blackhole bh) throws IOException {
+        try (BufferedReader r = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(state.log), StandardCharsets.UTF_8))) {
+            for (String line = r.readLine(); line != null; line = r.readLine()) {
+                bh.consume(ConsoleNote.removeNotes(line));
+            }
+        }
+    }
+
+    @Benchmark public void plainTextConsoleOutputStream(JenkinsState state) throws IOException {
+        PlainTextConsoleOutputStream plain = new PlainTextConsoleOutputStream(new NullStream());
+        copy(state.log, plain);
+        plain.close();
+    }
+
+    @Benchmark public void noteStripper(JenkinsState state) throws IOException {
+        NoteStripper stripper = new NoteStripper(new NullStream());
+        copy(state.log, stripper);
+        stripper.close();
+    }
+
+}
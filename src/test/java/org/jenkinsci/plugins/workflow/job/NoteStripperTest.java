@@ -0,0 +1,110 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.jenkinsci.plugins.workflow.job;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import hudson.console.ConsoleNote;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class NoteStripperTest {
+
+    private static final String NOTE = ConsoleNote.PREAMBLE_STR + "AAAA/bbb+ccc=" + ConsoleNote.POSTAMBLE_STR;
+
+    private static final List<String> LOGS = Arrays.asList(
+        "",
+        "plain\n",
+        NOTE + "[Pipeline] echo\nhello\n",
+        "a" + NOTE + "b" + NOTE + NOTE + "c\n",
+        "unterminated " + ConsoleNote.PREAMBLE_STR + "xyz\nnext " + NOTE + "line\n",
+        "stray \u001B[1mbold\u001B[0m and \u001B\u001B[8mha:x" + ConsoleNote.POSTAMBLE_STR + " done\n",
+        ConsoleNote.PREAMBLE_STR + "one" + ConsoleNote.PREAMBLE_STR + "two" + ConsoleNote.POSTAMBLE_STR + "three\n",
+        "no final newline " + NOTE,
+        "cut at the end " + ConsoleNote.PREAMBLE_STR.substring(0, 3));
+
+    private static String expected(String log) {
+        StringBuilder b = new StringBuilder();
+        for (String line : log.split("(?<=\n)")) {
+            b.append(ConsoleNote.removeNotes(line));
+        }
+        return b.toString();
+    }
+
+    @Test public void sameAsRemoveNotesByLine() throws Exception {
+        for (String log : LOGS) {
+            byte[] data = log.getBytes(StandardCharsets.UTF_8);
+            for (int chunk = 1; chunk <= data.length + 1; chunk++) {
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                NoteStripper stripper = new NoteStripper(baos);
+                for (int i = 0; i < data.length; i += chunk) {
+                    stripper.write(data, i, Math.min(chunk, data.length - i));
+                }
+                stripper.finish();
+                assertThat(log + " in chunks of " + chunk, baos.toString("UTF-8"), is(expected(log)));
+            }
+        }
+    }
+
+    @Test public void stripSameAsRemoveNotes() throws Exception {
+        for (String log : LOGS) {
+            for (String line : log.split("\n")) {
+                byte[] data = ("xx" + line + "yy").getBytes(StandardCharsets.UTF_8);
+                int len = NoteStripper.strip(data, 2, data.length - 4);
+                assertThat(line, new String(data, 2, len, StandardCharsets.UTF_8), is(ConsoleNote.removeNotes(line)));
+            }
+        }
+    }
+
+    @Test public void longNoteCopiedVerbatim() throws Exception {
+        int max = NoteStripper.MAX_NOTE_BYTES;
+        NoteStripper.MAX_NOTE_BYTES = NOTE.length();
+        try {
+            String tooLong = ConsoleNote.PREAMBLE_STR + "AAAA/bbb+ccc==" + ConsoleNote.POSTAMBLE_STR;
+            String log = "a" + NOTE + "b" + tooLong + "c" + NOTE + "\n";
+            String expected = "ab" + tooLong + "c\n";
+            byte[] data = log.getBytes(StandardCharsets.UTF_8);
+            for (int chunk = 1; chunk <= data.length; chunk++) {
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                NoteStripper stripper = new NoteStripper(baos);
+                for (int i = 0; i < data.length; i += chunk) {
+                    stripper.write(data, i, Math.min(chunk, data.length - i));
+                }
+                stripper.finish();
+                assertThat("chunks of " + chunk, baos.toString("UTF-8"), is(expected));
+            }
+            int len = NoteStripper.strip(data, 0, data.length);
+            assertThat(new String(data, 0, len, StandardCharsets.UTF_8), is(expected));
+        } finally {
+            NoteStripper.MAX_NOTE_BYTES = max;
+        }
+    }
+
+}
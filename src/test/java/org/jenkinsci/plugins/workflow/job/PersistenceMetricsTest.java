@@ -0,0 +1,95 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+import hudson.model.Item;
+import jenkins.model.Jenkins;
+import net.sf.json.JSONObject;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.BuildWatcher;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MockAuthorizationStrategy;
+
+public class PersistenceMetricsTest {
+
+    @ClassRule public static BuildWatcher buildWatcher = new BuildWatcher();
+    @Rule public JenkinsRule r = new JenkinsRule();
+
+    @Test public void histogram() {
+        PersistenceMetrics.Histogram h = new PersistenceMetrics.Histogram(new long[] {1, 10});
+        h.record(0);
+        h.record(1);
+        h.record(5);
+        h.record(50);
+        JSONObject json = h.toJSON();
+        assertThat(json.getLong("count"), is(4L));
+        assertThat(json.getLong("sum"), is(56L));
+        assertThat(json.getLong("max"), is(50L));
+        JSONObject buckets = json.getJSONObject("buckets");
+        assertThat(buckets.getLong("le_1"), is(2L));
+        assertThat(buckets.getLong("le_10"), is(1L));
+        assertThat(buckets.getLong("overflow"), is(1L));
+    }
+
+    @Test public void savesAndLoadsAreCounted() throws Exception {
+        WorkflowJob p = r.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition("echo 'hello'", true));
+        long saves = PersistenceMetrics.SAVE_MILLIS.getCount();
+        long builds = PersistenceMetrics.SAVES_PER_BUILD.getCount();
+        long bytes = PersistenceMetrics.getBytesWritten();
+        r.buildAndAssertSuccess(p);
+        assertThat(PersistenceMetrics.SAVE_MILLIS.getCount(), greaterThan(saves));
+        assertThat(PersistenceMetrics.SAVES_PER_BUILD.getCount(), is(builds + 1));
+        assertThat(PersistenceMetrics.getBytesWritten(), greaterThan(bytes));
+        long loads = PersistenceMetrics.LOAD_MILLIS.getCount();
+        p.getLazyBuildMixIn()._getRuns().purgeCache();
+        p.getBuildByNumber(1);
+        assertThat(PersistenceMetrics.LOAD_MILLIS.getCount(), is(loads + 1));
+    }
+
+    @Test public void endpointRequiresAdministrator() throws Exception {
+        r.jenkins.setSecurityRealm(r.createDummySecurityRealm());
+        r.jenkins.setAuthorizationStrategy(new MockAuthorizationStrategy().
+            grant(Jenkins.ADMINISTER).everywhere().to("admin").
+            grant(Jenkins.READ, Item.READ).everywhere().to("dev"));
+        JenkinsRule.WebClient wc = r.createWebClient();
+        wc.setThrowExceptionOnFailingStatusCode(false);
+        assertThat(wc.login("dev").goTo("pipeline-job-metrics/", null).getWebResponse().getStatusCode(), is(403));
+        JSONObject json = JSONObject.fromObject(r.createWebClient().login("admin").goTo("pipeline-job-metrics/", "application/json").getWebResponse().getContentAsString());
+        assertThat(json.getJSONObject("save").getJSONObject("millis").has("buckets"), is(true));
+        assertThat(json.getJSONObject("load").has("failed"), is(true));
+        assertThat(json.getJSONObject("resume").has("pending"), is(true));
+        assertThat("contributed by other sources", json.getJSONObject("save").getJSONObject("journal").has("appends"), is(true));
+        assertThat(json.getJSONObject("console").has("compressedLogs"), is(true));
+    }
+
+}
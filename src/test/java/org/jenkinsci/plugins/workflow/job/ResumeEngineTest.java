@@ -0,0 +1,74 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.Assert.assertEquals;
+
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.test.steps.SemaphoreStep;
+import org.junit.After;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.BuildWatcher;
+import org.jvnet.hudson.test.RestartableJenkinsRule;
+
+public class ResumeEngineTest {
+
+    @ClassRule public static BuildWatcher buildWatcher = new BuildWatcher();
+    @Rule public RestartableJenkinsRule story = new RestartableJenkinsRule();
+
+    private final int originalBatchSize = ResumeEngine.BATCH_SIZE;
+
+    @After public void restoreBatchSize() {
+        ResumeEngine.BATCH_SIZE = originalBatchSize;
+    }
+
+    @Test public void resumesInBatches() {
+        ResumeEngine.BATCH_SIZE = 2;
+        story.then(r -> {
+            for (String name : new String[] {"a", "b", "c"}) {
+                WorkflowJob p = r.jenkins.createProject(WorkflowJob.class, name);
+                p.setDefinition(new CpsFlowDefinition("semaphore 'wait'", true));
+                SemaphoreStep.waitForStart("wait/" + (name.charAt(0) - 'a' + 1), p.scheduleBuild2(0).waitForStart());
+            }
+        });
+        story.then(r -> {
+            for (int i = 1; i <= 3; i++) {
+                SemaphoreStep.success("wait/" + i, null);
+            }
+            for (String name : new String[] {"a", "b", "c"}) {
+                WorkflowRun b = r.jenkins.getItemByFullName(name, WorkflowJob.class).getBuildByNumber(1);
+                r.assertBuildStatusSuccess(r.waitForCompletion(b));
+            }
+            assertThat(ResumeEngine.get().getResumed(), greaterThanOrEqualTo(3L));
+            assertEquals(0, ResumeEngine.get().getPending());
+            assertEquals(0, ResumeEngine.get().getFailed());
+        });
+    }
+
+}
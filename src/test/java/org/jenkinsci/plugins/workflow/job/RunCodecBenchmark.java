@@ -0,0 +1,106 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Compares the {@link RunCodec}s on a finished build with a few dozen steps and actions. */
+@JmhBenchmark
+public class RunCodecBenchmark {
+
+    public static class JenkinsState extends JmhBenchmarkState {
+
+        WorkflowRun run;
+
+        @Override public void setup() throws Exception {
+            WorkflowJob p = getJenkins().createProject(WorkflowJob.class, "p");
+            p.setDefinition(new CpsFlowDefinition("for (int i = 0; i < 20; i++) {stage(/s$i/) {echo(/step $i/)}}", true));
+            run = p.scheduleBuild2(0).get();
+        }
+
+    }
+
+    @State(Scope.Thread)
+    public static class CodecState {
+
+        @Param({"xml", "binary"})
+        public String codec;
+
+        RunCodec impl;
+        byte[] encoded;
+
+        @Setup(Level.Trial) public void encode(JenkinsState state) throws IOException {
+            impl = "binary".equals(codec) ? RunCodec.BINARY : RunCodec.XML;
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            impl.write(state.run, baos);
+            encoded = baos.toByteArray();
+        }
+
+    }
+
+    /** A run which has never been loaded, to decode into as {@link hudson.model.RunMap} would, rather than merging into the fixture. */
+    @State(Scope.Thread)
+    public static class Target {
+
+        WorkflowRun run;
+
+        @Setup(Level.Invocation) public void create(JenkinsState state) throws IOException {
+            run = new WorkflowRun(state.run.getParent());
+        }
+
+    }
+
+    /** Reported alongside the timings as bytes per run. */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Size {
+        public long bytes;
+    }
+
+    @Benchmark public byte[] encode(JenkinsState state, CodecState codec, Size size) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(codec.encoded.length);
+        codec.impl.write(state.run, baos);
+        size.bytes = baos.size();
+        return baos.toByteArray();
+    }
+
+    @Benchmark public WorkflowRun decode(CodecState codec, Target target) throws IOException {
+        codec.impl.read(target.run, new ByteArrayInputStream(codec.encoded));
+        return target.run;
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.file.Files;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.flow.FlowDurabilityHint;
+import org.jenkinsci.plugins.workflow.job.properties.DurabilityHintJobProperty;
+import org.jenkinsci.plugins.workflow.test.steps.SemaphoreStep;
+import org.junit.After;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.BuildWatcher;
+import org.jvnet.hudson.test.RestartableJenkinsRule;
+
+public class RunCodecTest {
+
+    @ClassRule public static BuildWatcher buildWatcher = new BuildWatcher();
+    @Rule public RestartableJenkinsRule story = new RestartableJenkinsRule();
+
+    @After public void restoreFormat() {
+        RunCodec.FORMAT = "xml";
+    }
+
+    @Test public void binarySnapshotsWhileRunning() {
+        story.thenWithHardShutdown(r -> {
+            RunCodec.FORMAT = "binary";
+            WorkflowJob p = r.jenkins.createProject(WorkflowJob.class, "p");
+            p.addProperty(new DurabilityHintJobProperty(FlowDurabilityHint.MAX_SURVIVABILITY));
+            p.setDefinition(new CpsFlowDefinition("echo 'before'; semaphore 'wait'; echo 'after'", true));
+            WorkflowRun b = p.scheduleBuild2(0).waitForStart();
+            SemaphoreStep.waitForStart("wait/1", b);
+            assertTrue(new File(b.getRootDir(), "build.xml").isFile());
+            assertTrue(new File(b.getRootDir(), "build.bin").isFile());
+            assertSame(RunCodec.BINARY, RunCodec.forLoad(b.getRootDir()));
+        });
+        story.then(r -> {
+            RunCodec.FORMAT = "binary";
+            WorkflowRun b = r.jenkins.getItemByFullName("p", WorkflowJob.class).getBuildByNumber(1);
+            assertTrue(b.isBuilding());
+            SemaphoreStep.success("wait/1", null);
+            r.assertBuildStatusSuccess(r.waitForCompletion(b));
+            r.assertLogContains("after", b);
+            assertFalse("completed builds are kept only as XML", new File(b.getRootDir(), "build.bin").exists());
+            assertSame(RunCodec.XML, RunCodec.forLoad(b.getRootDir()));
+        });
+    }
+
+    @Test public void staleBinarySnapshotIgnored() {
+        story.then(r -> {
+            RunCodec.FORMAT = "binary";
+            WorkflowJob p = r.jenkins.createProject(WorkflowJob.class, "p");
+            p.addProperty(new DurabilityHintJobProperty(FlowDurabilityHint.MAX_SURVIVABILITY));
+            p.setDefinition(new CpsFlowDefinition("semaphore 'wait'", true));
+            WorkflowRun b = p.scheduleBuild2(0).waitForStart();
+            SemaphoreStep.waitForStart("wait/1", b);
+            File bin = new File(b.getRootDir(), "build.bin");
+            byte[] running = Files.readAllBytes(bin.toPath());
+            SemaphoreStep.success("wait/1", null);
+            r.assertBuildStatusSuccess(r.waitForCompletion(b));
+            // as if Jenkins crashed after writing the final build.xml but before deleting build.bin
+            Files.write(bin.toPath(), running);
+            assertSame(RunCodec.XML, RunCodec.forLoad(b.getRootDir()));
+        });
+    }
+
+    @Test public void roundTrip() {
+        story.then(r -> {
+            WorkflowJob p = r.jenkins.createProject(WorkflowJob.class, "p");
+            p.setDefinition(new CpsFlowDefinition("echo 'hello'", true));
+            WorkflowRun b = r.buildAndAssertSuccess(p);
+            for (RunCodec codec : new RunCodec[] {RunCodec.XML, RunCodec.BINARY}) {
+                ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                codec.write(b, baos);
+                long duration = b.getDuration();
+                codec.read(b, new ByteArrayInputStream(baos.toByteArray()));
+                assertEquals(codec.getFileName(), duration, b.getDuration());
+                assertTrue(codec.getFileName(), b.completed);
+            }
+        });
+    }
+
+}
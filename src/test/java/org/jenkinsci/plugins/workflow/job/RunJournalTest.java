@@ -0,0 +1,139 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import hudson.model.Action;
+import hudson.model.Result;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.flow.FlowDurabilityHint;
+import org.jenkinsci.plugins.workflow.flow.FlowExecution;
+import org.jenkinsci.plugins.workflow.job.properties.DurabilityHintJobProperty;
+import org.jenkinsci.plugins.workflow.test.steps.SemaphoreStep;
+import org.junit.After;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.jvnet.hudson.test.BuildWatcher;
+import org.jvnet.hudson.test.RestartableJenkinsRule;
+
+public class RunJournalTest {
+
+    @ClassRule public static BuildWatcher buildWatcher = new BuildWatcher();
+    @Rule public RestartableJenkinsRule story = new RestartableJenkinsRule();
+    @Rule public TemporaryFolder tmp = new TemporaryFolder();
+
+    @After public void disable() {
+        RunJournal.ENABLED = false;
+    }
+
+    @Test public void replayedAfterCrashAndCompactedOnCompletion() {
+        story.thenWithHardShutdown(r -> {
+            RunJournal.ENABLED = true;
+            WorkflowJob p = r.jenkins.createProject(WorkflowJob.class, "p");
+            p.addProperty(new DurabilityHintJobProperty(FlowDurabilityHint.MAX_SURVIVABILITY));
+            p.setDefinition(new CpsFlowDefinition("echo 'before'; semaphore 'wait'; echo 'after'", true));
+            WorkflowRun b = p.scheduleBuild2(0).waitForStart();
+            SemaphoreStep.waitForStart("wait/1", b);
+            assertTrue(new File(b.getRootDir(), RunJournal.FILE_NAME).isFile());
+        });
+        story.then(r -> {
+            WorkflowRun b = r.jenkins.getItemByFullName("p", WorkflowJob.class).getBuildByNumber(1);
+            assertFalse("compacted when loaded", new File(b.getRootDir(), RunJournal.FILE_NAME).exists());
+            assertTrue(b.isBuilding());
+            SemaphoreStep.success("wait/1", null);
+            r.assertBuildStatusSuccess(r.waitForCompletion(b));
+            r.assertLogContains("after", b);
+            assertFalse("compacted on completion", new File(b.getRootDir(), RunJournal.FILE_NAME).exists());
+        });
+    }
+
+    @Test public void corruptLengthIgnoresWholeJournal() throws Exception {
+        File dir = tmp.newFolder();
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(new File(dir, RunJournal.FILE_NAME)))) {
+            out.writeInt(0x524a4e4c);
+            out.writeLong(7);
+            out.writeByte(3); // duration
+            out.writeLong(1234);
+            out.writeByte(1); // result
+            out.writeInt(Integer.MAX_VALUE);
+        }
+        StringBuilder applied = new StringBuilder();
+        assertTrue(new RunJournal(dir).replay(new RunJournal.Target() {
+            @Override public void result(Result result) {
+                applied.append("result ");
+            }
+            @Override public void completed(boolean completed) {
+                applied.append("completed ");
+            }
+            @Override public void duration(long duration) {
+                applied.append("duration ");
+            }
+            @Override public void checkout(WorkflowRun.SCMCheckout checkout) {
+                applied.append("checkout ");
+            }
+            @Override public void action(Action action) {
+                applied.append("action ");
+            }
+            @Override public void execution(FlowExecution execution) {
+                applied.append("execution ");
+            }
+            @Override public FlowExecution currentExecution() {
+                return null;
+            }
+        }, 7));
+        assertThat(applied.toString(), is(""));
+    }
+
+    @Test public void executionJournaledAsDeltas() {
+        story.then(r -> {
+            RunJournal.ENABLED = true;
+            WorkflowJob p = r.jenkins.createProject(WorkflowJob.class, "p");
+            p.addProperty(new DurabilityHintJobProperty(FlowDurabilityHint.MAX_SURVIVABILITY));
+            p.setDefinition(new CpsFlowDefinition("echo 'one'; echo 'two'; echo 'three'; semaphore 'wait' // long-script-marker", true));
+            WorkflowRun b = p.scheduleBuild2(0).waitForStart();
+            SemaphoreStep.waitForStart("wait/1", b);
+            File journal = new File(b.getRootDir(), RunJournal.FILE_NAME);
+            assertTrue(journal.isFile());
+            String text = new String(Files.readAllBytes(journal.toPath()), StandardCharsets.UTF_8);
+            assertThat("script is only in the snapshot", text, not(containsString("long-script-marker")));
+            SemaphoreStep.success("wait/1", null);
+            r.assertBuildStatusSuccess(r.waitForCompletion(b));
+        });
+    }
+
+}
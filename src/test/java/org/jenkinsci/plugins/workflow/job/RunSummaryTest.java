@@ -0,0 +1,100 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+
+import hudson.model.Result;
+import java.io.File;
+import java.util.List;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.BuildWatcher;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class RunSummaryTest {
+
+    @ClassRule public static BuildWatcher buildWatcher = new BuildWatcher();
+    @Rule public JenkinsRule r = new JenkinsRule();
+
+    @Test public void writtenOnCompletion() throws Exception {
+        WorkflowJob p = r.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition("error 'oops'", true));
+        WorkflowRun b = r.buildAndAssertStatus(Result.FAILURE, p);
+        File file = new File(b.getRootDir(), RunSummary.FILE_NAME);
+        assertThat(file.length(), is((long) RunSummary.LENGTH));
+        RunSummary summary = RunSummary.read(b.getRootDir());
+        assertThat(summary, notNullValue());
+        assertThat(summary.getNumber(), is(1));
+        assertThat(summary.getResult(), is(Result.FAILURE));
+        assertThat(summary.getTimestamp(), is(b.getTimeInMillis()));
+        assertThat(summary.getDuration(), is(b.getDuration()));
+        assertThat(summary.isKeepLog(), is(false));
+        b.keepLog(true);
+        assertThat(RunSummary.read(b.getRootDir()).isKeepLog(), is(true));
+    }
+
+    @Test public void listedWithoutLoading() throws Exception {
+        WorkflowJob p = r.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition("echo 'hello'", true));
+        for (int i = 0; i < 3; i++) {
+            r.buildAndAssertSuccess(p);
+        }
+        p.getLazyBuildMixIn()._getRuns().purgeCache();
+        long reads = RunSummary.getReads();
+        List<RunSummary> summaries = p.getBuildSummaries(2);
+        assertThat(summaries.size(), is(2));
+        assertThat(summaries.get(0).getNumber(), is(3));
+        assertThat(summaries.get(1).getNumber(), is(2));
+        assertThat(RunSummary.getReads() - reads, is(2L));
+        assertThat(p._getRuns().getLoadedBuilds().size(), is(0));
+        JSONObject json = JSONObject.fromObject(r.createWebClient().goTo("job/p/buildSummaries?limit=5", "application/json").getWebResponse().getContentAsString());
+        JSONArray builds = json.getJSONArray("builds");
+        assertThat(builds.size(), is(3));
+        assertThat(builds.getJSONObject(2).getString("result"), is("SUCCESS"));
+        assertThat(builds.getJSONObject(0).getLong("timestamp"), greaterThan(0L));
+    }
+
+    @Test public void missingSummaryFallsBackToLoading() throws Exception {
+        WorkflowJob p = r.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition("echo 'hello'", true));
+        WorkflowRun b = r.buildAndAssertSuccess(p);
+        assertThat(new File(b.getRootDir(), RunSummary.FILE_NAME).delete(), is(true));
+        p.getLazyBuildMixIn()._getRuns().purgeCache();
+        List<RunSummary> summaries = p.getBuildSummaries(10);
+        assertThat(summaries.size(), is(1));
+        assertThat(summaries.get(0).getResult(), is(Result.SUCCESS));
+        // loading wrote it back
+        assertThat(new File(b.getRootDir(), RunSummary.FILE_NAME).isFile(), is(true));
+    }
+
+}
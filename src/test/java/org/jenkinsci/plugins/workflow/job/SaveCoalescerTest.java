@@ -0,0 +1,81 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.io.FileUtils;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.flow.FlowDurabilityHint;
+import org.jenkinsci.plugins.workflow.job.properties.DurabilityHintJobProperty;
+import org.junit.After;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.BuildWatcher;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class SaveCoalescerTest {
+
+    @ClassRule public static BuildWatcher buildWatcher = new BuildWatcher();
+    @Rule public JenkinsRule r = new JenkinsRule();
+
+    private final long originalWindow = SaveCoalescer.WINDOW_MILLIS;
+
+    @After public void restoreWindow() {
+        SaveCoalescer.WINDOW_MILLIS = originalWindow;
+    }
+
+    @Test public void burstsAreCoalescedAndFinishIsSynchronous() throws Exception {
+        SaveCoalescer.WINDOW_MILLIS = 60_000; // longer than the build, so only coalescing or finish() can write
+        WorkflowJob p = r.createProject(WorkflowJob.class, "p");
+        p.addProperty(new DurabilityHintJobProperty(FlowDurabilityHint.MAX_SURVIVABILITY));
+        p.setDefinition(new CpsFlowDefinition("for (int i = 0; i < 20; i++) {echo(/step $i/)}", true));
+        long coalescedBefore = SaveCoalescer.getCoalesced();
+        WorkflowRun b = r.buildAndAssertSuccess(p);
+        assertThat(SaveCoalescer.getCoalesced() - coalescedBefore, greaterThan(0L));
+        String xml = FileUtils.readFileToString(new File(b.getRootDir(), "build.xml"), StandardCharsets.UTF_8);
+        assertThat(xml, containsString("<completed>true</completed>"));
+        assertThat(xml, containsString("<result>SUCCESS</result>"));
+    }
+
+    @Test public void synchronousByDefault() throws Exception {
+        SaveCoalescer.WINDOW_MILLIS = 0;
+        WorkflowJob p = r.createProject(WorkflowJob.class, "p");
+        p.addProperty(new DurabilityHintJobProperty(FlowDurabilityHint.MAX_SURVIVABILITY));
+        p.setDefinition(new CpsFlowDefinition("echo 'one'; echo 'two'", true));
+        long coalescedBefore = SaveCoalescer.getCoalesced();
+        long writtenBefore = SaveCoalescer.getWritten();
+        r.buildAndAssertSuccess(p);
+        assertThat(SaveCoalescer.getWritten() - writtenBefore, greaterThan(0L));
+        assertThat(SaveCoalescer.getCoalesced() - coalescedBefore, is(0L));
+    }
+
+}
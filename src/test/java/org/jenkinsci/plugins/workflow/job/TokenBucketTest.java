@@ -0,0 +1,70 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+
+public class TokenBucketTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test public void burstThenRefill() {
+        TokenBucket bucket = new TokenBucket(2, now::get);
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), bucket.nanosUntilAvailable());
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(0, bucket.nanosUntilAvailable());
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test public void fractionalRate() {
+        TokenBucket bucket = new TokenBucket(0.25, now::get);
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+        now.addAndGet(TimeUnit.SECONDS.toNanos(3));
+        assertFalse(bucket.tryAcquire());
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertTrue(bucket.tryAcquire());
+    }
+
+    @Test public void capacityIsBounded() {
+        TokenBucket bucket = new TokenBucket(1, now::get);
+        now.addAndGet(TimeUnit.HOURS.toNanos(1));
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+        bucket.release();
+        assertTrue(bucket.tryAcquire());
+    }
+
+}
@@ -157,6 +157,21 @@ public class WorkflowRunTest {
         }
     }
 
+    @Test public void lifecycleState() throws Exception {
+        WorkflowJob p = r.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition("semaphore 'wait'", true));
+        WorkflowRun b = p.scheduleBuild2(0).waitForStart();
+        SemaphoreStep.waitForStart("wait/1", b);
+        assertEquals(WorkflowRun.State.RUNNING, b.state());
+        assertTrue(b.isInProgress());
+        SemaphoreStep.success("wait/1", null);
+        r.assertBuildStatusSuccess(r.waitForCompletion(b));
+        assertEquals(WorkflowRun.State.COMPLETED, b.state());
+        assertFalse(b.isInProgress());
+        b.reload();
+        assertEquals(WorkflowRun.State.COMPLETED, b.state());
+    }
+
     @Test public void funnyParameters() throws Exception {
         WorkflowJob p = r.jenkins.createProject(WorkflowJob.class, "p");
         p.setDefinition(new CpsFlowDefinition("echo \"a.b=${params['a.b']}\"", true));
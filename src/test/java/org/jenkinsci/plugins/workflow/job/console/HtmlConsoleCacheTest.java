@@ -0,0 +1,147 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job.console;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import hudson.model.User;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import java.io.File;
+import java.io.StringWriter;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.BuildWatcher;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class HtmlConsoleCacheTest {
+
+    @Rule public JenkinsRule r = new JenkinsRule();
+    @ClassRule public static BuildWatcher buildWatcher = new BuildWatcher();
+
+    private final long maxBytes = HtmlConsoleCache.MAX_BYTES;
+
+    @Before public void enable() {
+        HtmlConsoleCache.ENABLED = true;
+    }
+
+    @After public void restore() {
+        HtmlConsoleCache.ENABLED = false;
+        HtmlConsoleCache.MAX_BYTES = maxBytes;
+    }
+
+    private static String render(WorkflowRun b, long offset) throws Exception {
+        StringWriter w = new StringWriter();
+        HtmlConsoleCache.writeHtmlTo(b, offset, w);
+        return w.toString();
+    }
+
+    @Test public void renderedOnFirstView() throws Exception {
+        WorkflowJob p = r.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition("stage('<build>') {echo 'hello'}", true));
+        WorkflowRun b = r.buildAndAssertSuccess(p);
+        long misses = HtmlConsoleCache.getMisses();
+        long hits = HtmlConsoleCache.getHits();
+        long renders = HtmlConsoleCache.getRenders();
+        JenkinsRule.WebClient wc = r.createWebClient();
+        wc.setJavaScriptEnabled(false); // so that no script sets a cookie between views
+        String uncached = consoleOutput(wc.goTo(b.getUrl() + "console").getWebResponse().getContentAsString());
+        assertThat(HtmlConsoleCache.getMisses() - misses, is(1L));
+        assertThat(HtmlConsoleCache.getRenders() - renders, is(1L));
+        String cached = consoleOutput(wc.goTo(b.getUrl() + "console").getWebResponse().getContentAsString());
+        assertThat(HtmlConsoleCache.getHits() - hits, is(1L));
+        assertThat(cached, containsString("hello"));
+        assertThat(cached, containsString("label=\"&lt;build&gt;\">[Pipeline] {"));
+        assertThat(cached, is(uncached));
+    }
+
+    @Test public void perViewer() throws Exception {
+        WorkflowJob p = r.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition("echo 'hello'", true));
+        WorkflowRun b = r.buildAndAssertSuccess(p);
+        String system = render(b, 0);
+        File systemFile = HtmlConsoleCache.fileFor(b, 0);
+        assertTrue(systemFile.isFile());
+        long misses = HtmlConsoleCache.getMisses();
+        try (ACLContext ctx = ACL.as2(User.getById("alice", true).impersonate2())) {
+            File aliceFile = HtmlConsoleCache.fileFor(b, 0);
+            assertThat(aliceFile, not(systemFile));
+            assertFalse(aliceFile.isFile());
+            assertThat(render(b, 0), is(system));
+            assertTrue(aliceFile.isFile());
+        }
+        assertThat(HtmlConsoleCache.getMisses() - misses, is(1L));
+    }
+
+    private static String consoleOutput(String page) {
+        int start = page.indexOf("<pre class=\"console-output\">");
+        return page.substring(start, page.indexOf("</pre>", start));
+    }
+
+    @Test public void sameAsStorage() throws Exception {
+        WorkflowJob p = r.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition("for (int i = 0; i < 100; i++) {echo \"line #$i\"}", true));
+        WorkflowRun b = r.buildAndAssertSuccess(p);
+        StringWriter expected = new StringWriter();
+        b.getLogText().writeHtmlTo(0, expected);
+        assertThat(expected.toString(), containsString("pipeline-node-"));
+        assertThat(render(b, 0), is(expected.toString()));
+        assertThat(render(b, 0), is(expected.toString()));
+        long length = b.getLogText().length();
+        String tail = render(b, length - 200);
+        assertTrue(HtmlConsoleCache.fileFor(b, length - 200).isFile());
+        assertThat(render(b, length - 200), is(tail));
+        assertThat(tail, containsString("line #99"));
+        assertThat(tail, not(containsString("line #50")));
+    }
+
+    @Test public void eviction() throws Exception {
+        WorkflowJob p = r.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition("echo 'hello'", true));
+        WorkflowRun b1 = r.buildAndAssertSuccess(p);
+        render(b1, 0);
+        WorkflowRun b2 = r.buildAndAssertSuccess(p);
+        render(b2, 0);
+        assertTrue(HtmlConsoleCache.fileFor(b1, 0).setLastModified(System.currentTimeMillis() - 60_000));
+        HtmlConsoleCache.MAX_BYTES = HtmlConsoleCache.fileFor(b2, 0).length();
+        HtmlConsoleCache.evict();
+        assertFalse(HtmlConsoleCache.fileFor(b1, 0).isFile());
+        assertTrue(HtmlConsoleCache.fileFor(b2, 0).isFile());
+        b2.delete();
+        assertFalse(HtmlConsoleCache.fileFor(b2, 0).isFile());
+    }
+
+}
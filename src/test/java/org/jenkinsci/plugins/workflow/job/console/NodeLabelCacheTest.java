@@ -0,0 +1,104 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.jenkinsci.plugins.workflow.job.console;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.jenkinsci.plugins.workflow.test.steps.SemaphoreStep;
+import org.junit.After;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.BuildWatcher;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class NodeLabelCacheTest {
+
+    @Rule public JenkinsRule r = new JenkinsRule();
+    @ClassRule public static BuildWatcher buildWatcher = new BuildWatcher();
+
+    private final int maxEntries = NodeLabelCache.MAX_ENTRIES;
+
+    @After public void restore() {
+        NodeLabelCache.MAX_ENTRIES = maxEntries;
+    }
+
+    @Test public void completedBuildFilledOnce() throws Exception {
+        WorkflowJob p = r.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition("stage('one') {}; stage('<two>') {}", true));
+        WorkflowRun b = r.buildAndAssertSuccess(p);
+        long fills = NodeLabelCache.getFills();
+        long misses = NodeLabelCache.getMisses();
+        long hits = NodeLabelCache.getHits();
+        JenkinsRule.WebClient wc = r.createWebClient();
+        String html = wc.goTo(b.getUrl() + "console").getWebResponse().getContentAsString();
+        assertThat(html, containsString("label=\"one\">[Pipeline] {"));
+        assertThat(html, containsString("label=\"&lt;two&gt;\">[Pipeline] {"));
+        html = wc.goTo(b.getUrl() + "console").getWebResponse().getContentAsString();
+        assertThat(html, containsString("label=\"&lt;two&gt;\">[Pipeline] {"));
+        assertThat(NodeLabelCache.getFills() - fills, is(1L));
+        assertThat(NodeLabelCache.getMisses() - misses, is(0L));
+        assertThat(NodeLabelCache.getHits() - hits, greaterThan(0L));
+    }
+
+    @Test public void boundedFill() throws Exception {
+        NodeLabelCache.MAX_ENTRIES = 1;
+        WorkflowJob p = r.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition("stage('one') {}; stage('two') {}; stage('three') {}", true));
+        WorkflowRun b = r.buildAndAssertSuccess(p);
+        String html = r.createWebClient().goTo(b.getUrl() + "console").getWebResponse().getContentAsString();
+        assertThat(html, containsString("label=\"one\">[Pipeline] {"));
+        assertThat(html, containsString("label=\"two\">[Pipeline] {"));
+        assertThat(html, containsString("label=\"three\">[Pipeline] {"));
+    }
+
+    @Test public void runningBuild() throws Exception {
+        WorkflowJob p = r.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition("stage('one') {semaphore 'wait'}", true));
+        WorkflowRun b = p.scheduleBuild2(0).waitForStart();
+        SemaphoreStep.waitForStart("wait/1", b);
+        long fills = NodeLabelCache.getFills();
+        String html = r.createWebClient().goTo(b.getUrl() + "console").getWebResponse().getContentAsString();
+        assertThat(html, containsString("label=\"one\">[Pipeline] {"));
+        assertThat(NodeLabelCache.getFills() - fills, is(0L));
+        long misses = NodeLabelCache.getMisses();
+        html = r.createWebClient().goTo(b.getUrl() + "console").getWebResponse().getContentAsString();
+        assertThat(html, containsString("label=\"one\">[Pipeline] {"));
+        assertThat("only the current head, the semaphore step, is loaded again", NodeLabelCache.getMisses() - misses, lessThanOrEqualTo(1L));
+        SemaphoreStep.success("wait/1", null);
+        r.assertBuildStatusSuccess(r.waitForCompletion(b));
+        html = r.createWebClient().goTo(b.getUrl() + "console").getWebResponse().getContentAsString();
+        assertThat(html, containsString("label=\"one\">[Pipeline] {"));
+        assertThat(NodeLabelCache.getFills() - fills, is(1L));
+    }
+
+}
@@ -0,0 +1,131 @@
+/*
+ * The MIT License
+ *
+ * Copyright (c) 2026, CloudBees, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+
+package org.jenkinsci.plugins.workflow.job.views;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONNull;
+import net.sf.json.JSONObject;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.cps.nodes.StepAtomNode;
+import org.jenkinsci.plugins.workflow.graph.FlowNode;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.BuildWatcher;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class FlowGraphActionTest {
+
+    @Rule public JenkinsRule r = new JenkinsRule();
+    @ClassRule public static BuildWatcher buildWatcher = new BuildWatcher();
+
+    private WorkflowRun build() throws Exception {
+        WorkflowJob p = r.createProject(WorkflowJob.class, "p");
+        p.setDefinition(new CpsFlowDefinition("stage('A') {echo 'a1'; echo 'a2'}; stage('B') {echo 'b'}", true));
+        return r.buildAndAssertSuccess(p);
+    }
+
+    private JSONObject page(WorkflowRun b, String query) throws Exception {
+        return JSONObject.fromObject(r.createWebClient().goTo(b.getUrl() + "flowGraph/nodes?" + query, "application/json").getWebResponse().getContentAsString());
+    }
+
+    private List<String> allPages(WorkflowRun b, String query) throws Exception {
+        List<String> ids = new ArrayList<>();
+        String start = null;
+        while (true) {
+            JSONObject json = page(b, query + (start != null ? "&start=" + start : ""));
+            for (Object node : json.getJSONArray("nodes")) {
+                ids.add(((JSONObject) node).getString("id"));
+            }
+            Object next = json.get("next");
+            if (!(next instanceof String)) {
+                return ids;
+            }
+            start = (String) next;
+        }
+    }
+
+    @Test public void pages() throws Exception {
+        WorkflowRun b = build();
+        List<String> expected = b.getAction(FlowGraphAction.class).getNodes().stream()
+                .map(FlowNode::getId).sorted(Comparator.comparingInt(Integer::parseInt)).collect(Collectors.toList());
+        assertThat(allPages(b, "limit=2"), is(expected));
+        List<String> backward = allPages(b, "limit=3&direction=backward");
+        List<String> reversed = new ArrayList<>(expected);
+        Collections.reverse(reversed);
+        assertThat(backward, is(reversed));
+        JSONArray first = page(b, "limit=1").getJSONArray("nodes");
+        assertThat(first.getJSONObject(0).getString("_class"), is("org.jenkinsci.plugins.workflow.graph.FlowStartNode"));
+        assertThat(page(b, "limit=" + expected.size()).get("next"), is(JSONNull.getInstance()));
+    }
+
+    @Test public void filters() throws Exception {
+        WorkflowRun b = build();
+        JSONArray steps = page(b, "type=StepAtomNode").getJSONArray("nodes");
+        List<String> names = new ArrayList<>();
+        for (Object node : steps) {
+            names.add(((JSONObject) node).getString("displayFunctionName"));
+        }
+        assertThat(names, contains("echo", "echo", "echo"));
+        FlowNode a1 = b.getAction(FlowGraphAction.class).getNodes().stream()
+                .filter(n -> n instanceof StepAtomNode).min(Comparator.comparingInt(n -> Integer.parseInt(n.getId()))).get();
+        JSONArray inA = page(b, "type=StepAtomNode&enclosing=" + a1.getEnclosingId()).getJSONArray("nodes");
+        assertThat(inA.size(), is(2));
+    }
+
+    @Test public void boundedScan() throws Exception {
+        WorkflowRun b = build();
+        int maxScanned = NodePage.MAX_SCANNED;
+        NodePage.MAX_SCANNED = 1;
+        try {
+            JSONObject first = page(b, "limit=1&type=StepAtomNode");
+            assertThat(first.getJSONArray("nodes").size(), is(0));
+            assertThat(first.get("next"), instanceOf(String.class));
+            assertThat(allPages(b, "limit=1&type=StepAtomNode").size(), is(3));
+        } finally {
+            NodePage.MAX_SCANNED = maxScanned;
+        }
+    }
+
+    @Test public void badDirection() throws Exception {
+        WorkflowRun b = build();
+        JenkinsRule.WebClient wc = r.createWebClient().withThrowExceptionOnFailingStatusCode(false);
+        assertThat(wc.goTo(b.getUrl() + "flowGraph/nodes?direction=sideways", null).getWebResponse().getStatusCode(), is(400));
+    }
+
+}